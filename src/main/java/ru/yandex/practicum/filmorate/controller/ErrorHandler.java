@@ -1,16 +1,39 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.ValidationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.yandex.practicum.filmorate.exception.NotEnoughDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
 @RestControllerAdvice("ru.yandex.practicum.filmorate.controller")
 public class ErrorHandler {
 
+    /**
+     * SQLSTATE нарушения внешнего ключа: 23506 — в H2, 23503 — по стандарту (PostgreSQL).
+     */
+    private static final Set<String> FOREIGN_KEY_VIOLATION_STATES = Set.of("23506", "23503");
+
+    /**
+     * Сообщения для внешних ключей, имена которых заданы в schema.sql.
+     */
+    private static final Map<String, String> FOREIGN_KEY_MESSAGES = Map.of(
+            "FILM_LIKES_USER_FK", "Пользователь не найден",
+            "FILM_LIKES_FILM_FK", "Фильм не найден",
+            "FRIENDSHIP_USER_FK", "Пользователь не найден",
+            "FRIENDSHIP_FRIEND_FK", "Пользователь не найден",
+            "FILM_GENRE_FILM_FK", "Фильм не найден",
+            "FILM_GENRE_GENRE_FK", "Жанр не найден");
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse notEnoughDataHandler(NotEnoughDataException e) {
@@ -28,4 +51,30 @@ public class ErrorHandler {
     public ErrorResponse validationErrorHandler(ValidationException e) {
         return new ErrorResponse(e.getMessage());
     }
+
+    /**
+     * Нарушение внешнего ключа означает, что запрос ссылается на несуществующий объект, — это 404.
+     * Остальные нарушения целостности (уникальность, NOT NULL) — конфликт с текущими данными.
+     */
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> dataIntegrityViolationHandler(DataIntegrityViolationException e) {
+        Throwable cause = e.getMostSpecificCause();
+        if (cause instanceof SQLException sqlException
+                && FOREIGN_KEY_VIOLATION_STATES.contains(sqlException.getSQLState())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(missingObjectMessage(cause)));
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse("Нарушение целостности данных"));
+    }
+
+    /**
+     * Определяет недостающий объект по имени нарушенного внешнего ключа, которое драйвер включает в сообщение.
+     */
+    private static String missingObjectMessage(Throwable cause) {
+        String message = String.valueOf(cause.getMessage()).toUpperCase(Locale.ROOT);
+        return FOREIGN_KEY_MESSAGES.entrySet().stream()
+                .filter(entry -> message.contains(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse("Связанный объект не найден");
+    }
 }
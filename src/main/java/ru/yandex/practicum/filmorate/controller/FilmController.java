@@ -3,13 +3,23 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.dto.film.FilmDto;
+import ru.yandex.practicum.filmorate.dto.film.FilmSearchRequest;
+import ru.yandex.practicum.filmorate.dto.film.FilmTitleDto;
+import ru.yandex.practicum.filmorate.dto.film.LikeBatchItemDto;
+import ru.yandex.practicum.filmorate.dto.film.LikeBatchResultDto;
 import ru.yandex.practicum.filmorate.dto.film.PostFilmRequestDto;
 import ru.yandex.practicum.filmorate.dto.film.UpdateFilmRequestDto;
+import ru.yandex.practicum.filmorate.dto.user.UserDto;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * REST-контроллер для управления фильмами.
@@ -23,18 +33,62 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class FilmController {
+    private static final String MISSING_IDS_HEADER = "X-Missing-Ids";
+    private static final String NEXT_AFTER_HEADER = "X-Next-After";
+
     private final FilmService filmService;
+    private final NdjsonWriter ndjsonWriter;
 
     /**
      * Возвращает список всех фильмов.
      * <p>
-     * GET /films
+     * GET /films?fields=id,name,likesCount
      *
+     * @param fields поля ответа через запятую (необязательно, ID возвращается всегда)
      * @return список DTO фильмов
      */
     @GetMapping
-    public List<FilmDto> getFilms() {
-        return filmService.getAllFilms();
+    public List<FilmDto> getFilms(@RequestParam(required = false) List<String> fields) {
+        return filmService.getAllFilms(fields);
+    }
+
+    /**
+     * Выдаёт все фильмы потоком в формате NDJSON, по одному фильму на строку.
+     * Фильмы читаются из базы страницами по мере отправки, поэтому ответ не собирается в памяти целиком.
+     * <p>
+     * GET /films/stream?fields=id,name
+     *
+     * @param fields поля ответа через запятую (необязательно, ID возвращается всегда)
+     * @return ответ для потоковой выдачи
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFilms(@RequestParam(required = false) List<String> fields) {
+        return ndjsonWriter.write(filmService.streamAllFilms(fields));
+    }
+
+    /**
+     * Возвращает фильмы по списку идентификаторов в порядке запроса.
+     * ID, для которых фильм не найден, перечисляются в заголовке {@code X-Missing-Ids}.
+     * <p>
+     * GET /films?ids=1,2,3
+     *
+     * @param ids    идентификаторы фильмов
+     * @param fields поля ответа через запятую (необязательно, ID возвращается всегда)
+     * @return список DTO найденных фильмов
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<FilmDto>> getFilmsByIds(@RequestParam List<Integer> ids,
+                                                       @RequestParam(required = false) List<String> fields) {
+        List<FilmDto> films = filmService.getFilmsByIds(ids, fields);
+        Set<Integer> found = films.stream().map(FilmDto::getId).collect(Collectors.toSet());
+        String missing = ids.stream()
+                .filter(id -> !found.contains(id))
+                .distinct()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        return missing.isEmpty()
+                ? ResponseEntity.ok(films)
+                : ResponseEntity.ok().header(MISSING_IDS_HEADER, missing).body(films);
     }
 
     /**
@@ -69,11 +123,36 @@ public class FilmController {
      * GET /films/{filmId}
      *
      * @param filmId идентификатор фильма
+     * @param fields поля ответа через запятую (необязательно, ID возвращается всегда)
      * @return фильм, если найден
      */
     @GetMapping("/{filmId}")
-    public FilmDto getFilmById(@PathVariable Integer filmId) {
-        return filmService.getFilmById(filmId);
+    public FilmDto getFilmById(@PathVariable Integer filmId, @RequestParam(required = false) List<String> fields) {
+        return filmService.getFilmById(filmId, fields);
+    }
+
+    /**
+     * Возвращает страницу пользователей, поставивших лайк фильму, в порядке возрастания ID.
+     * Если страница заполнена, значение для следующего запроса передаётся в заголовке {@code X-Next-After}.
+     * <p>
+     * GET /films/{id}/likes?after=0&limit=100
+     *
+     * @param id     идентификатор фильма
+     * @param after  ID последнего пользователя предыдущей страницы (по умолчанию 0)
+     * @param limit  размер страницы (по умолчанию 100)
+     * @param fields поля ответа через запятую (необязательно, ID возвращается всегда)
+     * @return список DTO пользователей
+     */
+    @GetMapping("/{id}/likes")
+    public ResponseEntity<List<UserDto>> getFilmLikers(@PathVariable Integer id,
+                                                       @RequestParam(defaultValue = "0") int after,
+                                                       @RequestParam(defaultValue = "100") int limit,
+                                                       @RequestParam(required = false) List<String> fields) {
+        List<UserDto> likers = filmService.getFilmLikers(id, after, limit, fields);
+        return likers.size() < limit
+                ? ResponseEntity.ok(likers)
+                : ResponseEntity.ok().header(NEXT_AFTER_HEADER, String.valueOf(likers.get(likers.size() - 1).getId()))
+                .body(likers);
     }
 
     /**
@@ -103,15 +182,116 @@ public class FilmController {
     }
 
     /**
-     * Возвращает самые популярные фильмы по количеству лайков.
+     * Ставит и снимает лайки пакетом в одной транзакции.
+     * Каждый элемент — тройка {@code filmId}, {@code userId}, {@code op} ({@code like} или {@code unlike}).
      * <p>
-     * GET /films/popular?count=N
+     * POST /films/likes:batch
      *
-     * @param count количество фильмов (по умолчанию 10)
+     * @param items операции над лайками
+     * @return результат каждой операции в порядке запроса
+     */
+    @PostMapping("/likes:batch")
+    public List<LikeBatchResultDto> applyLikeBatch(@RequestBody List<LikeBatchItemDto> items) {
+        return filmService.applyLikeBatch(items);
+    }
+
+    /**
+     * Возвращает самые популярные фильмы по количеству лайков
+     * с необязательной фильтрацией по жанру, рейтингу MPA и году выхода.
+     * <p>
+     * GET /films/popular?count=N&genreId=G&mpaId=M&year=Y
+     *
+     * @param count   количество фильмов (по умолчанию 10)
+     * @param genreId идентификатор жанра (необязательно)
+     * @param mpaId   идентификатор рейтинга MPA (необязательно)
+     * @param year    год выхода (необязательно)
+     * @param fields  поля ответа через запятую (необязательно, ID возвращается всегда)
      * @return список наиболее популярных фильмов
      */
     @GetMapping("/popular")
-    public List<FilmDto> getMostLikedFilms(@RequestParam(defaultValue = "10") int count) {
-        return filmService.getMostLikedFilms(count);
+    public List<FilmDto> getMostLikedFilms(@RequestParam(defaultValue = "10") int count,
+                                           @RequestParam(required = false) Integer genreId,
+                                           @RequestParam(required = false) Integer mpaId,
+                                           @RequestParam(required = false) Integer year,
+                                           @RequestParam(required = false) List<String> fields) {
+        return filmService.getMostLikedFilms(count, genreId, mpaId, year, fields);
+    }
+
+    /**
+     * Возвращает фильмы, набравшие больше всего лайков за последние часы или дни.
+     * <p>
+     * GET /films/trending?window=24h&count=N&mode=exact
+     *
+     * @param window длина окна: число часов ({@code h}) или дней ({@code d}), по умолчанию 24h
+     * @param count  количество фильмов (по умолчанию 10)
+     * @param mode   {@code exact} — точные счётчики в окне, {@code approx} — приближённый топ
+     *               с затуханием для очень большого потока лайков (по умолчанию exact)
+     * @return список фильмов по убыванию количества лайков в окне
+     */
+    @GetMapping("/trending")
+    public List<FilmDto> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                          @RequestParam(defaultValue = "10") int count,
+                                          @RequestParam(defaultValue = "exact") String mode) {
+        return filmService.getTrendingFilms(window, count, mode);
+    }
+
+    /**
+     * Возвращает фильмы, которые чаще всего лайкают вместе с указанным.
+     * <p>
+     * GET /films/{id}/similar?count=N
+     *
+     * @param id    идентификатор фильма
+     * @param count количество фильмов (по умолчанию 10)
+     * @return список похожих фильмов
+     */
+    @GetMapping("/{id}/similar")
+    public List<FilmDto> getSimilarFilms(@PathVariable Integer id, @RequestParam(defaultValue = "10") int count) {
+        return filmService.getSimilarFilms(id, count);
+    }
+
+    /**
+     * Возвращает фильмы, похожие на указанный по жанрам, рейтингу MPA, году выхода и продолжительности.
+     * Подходит для новых фильмов, у которых ещё нет лайков.
+     * <p>
+     * GET /films/{id}/alike?count=N
+     *
+     * @param id    идентификатор фильма
+     * @param count количество фильмов (по умолчанию 10)
+     * @return список похожих фильмов
+     */
+    @GetMapping("/{id}/alike")
+    public List<FilmDto> getAlikeFilms(@PathVariable Integer id, @RequestParam(defaultValue = "10") int count) {
+        return filmService.getAlikeFilms(id, count);
+    }
+
+    /**
+     * Ищет фильмы по комбинации фильтров: жанры, рейтинги MPA, диапазоны продолжительности,
+     * даты выхода и количества лайков, с сортировкой по одному из этих полей.
+     * Если передан текст {@code q}, ищет слова запроса в названии и описании
+     * и упорядочивает результат по релевантности.
+     * <p>
+     * GET /films/search?q=text&genreIds=1,2&mpaIds=3&minDuration=90&releasedFrom=2000-01-01&sort=likes&order=desc&count=N
+     *
+     * @param request параметры поиска
+     * @return список найденных фильмов
+     */
+    @GetMapping("/search")
+    public List<FilmDto> searchFilms(@Valid FilmSearchRequest request) {
+        return filmService.searchFilms(request);
+    }
+
+    /**
+     * Возвращает подсказки для ввода названия фильма: самые популярные фильмы,
+     * название которых начинается с префикса.
+     * <p>
+     * GET /films/autocomplete?prefix=text&limit=N
+     *
+     * @param prefix начало названия (без учёта регистра)
+     * @param limit  количество подсказок (по умолчанию 10)
+     * @return список подсказок с ID и названием фильма
+     */
+    @GetMapping("/autocomplete")
+    public List<FilmTitleDto> autocomplete(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return filmService.autocomplete(prefix, limit);
     }
 }
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.service.PopularFilmsSnapshot;
+import ru.yandex.practicum.filmorate.service.RequestCoalescer;
+import ru.yandex.practicum.filmorate.service.UserDtoCache;
+
+/**
+ * REST-контроллер служебных операций и статистики приложения.
+ * <p>
+ * Базовый URL: /internal
+ */
+@RestController
+@RequestMapping("internal")
+@RequiredArgsConstructor
+public class InternalController {
+    private final RequestCoalescer coalescer;
+    private final PopularFilmsSnapshot popularSnapshot;
+    private final UserDtoCache userCache;
+
+    /**
+     * Возвращает счётчики объединения одинаковых одновременных запросов.
+     * <p>
+     * GET /internal/stats/coalescing
+     *
+     * @return количество вызовов, вычислений, объединённых и переиспользованных вызовов
+     */
+    @GetMapping("/stats/coalescing")
+    public RequestCoalescer.Stats getCoalescingStats() {
+        return coalescer.getStats();
+    }
+
+    /**
+     * Возвращает возраст снимка популярных фильмов и счётчики его использования.
+     * <p>
+     * GET /internal/stats/popular-snapshot
+     *
+     * @return статистика снимка
+     */
+    @GetMapping("/stats/popular-snapshot")
+    public PopularFilmsSnapshot.Stats getPopularSnapshotStats() {
+        return popularSnapshot.getStats();
+    }
+
+    /**
+     * Возвращает размер кэша DTO пользователей и счётчики обращений к нему.
+     * <p>
+     * GET /internal/stats/user-cache
+     *
+     * @return статистика кэша
+     */
+    @GetMapping("/stats/user-cache")
+    public UserDtoCache.Stats getUserCacheStats() {
+        return userCache.getStats();
+    }
+
+    /**
+     * Пересчитывает снимок популярных фильмов вне расписания.
+     * <p>
+     * POST /internal/popular-snapshot/refresh
+     *
+     * @return статистика нового снимка
+     */
+    @PostMapping("/popular-snapshot/refresh")
+    public PopularFilmsSnapshot.Stats refreshPopularSnapshot() {
+        popularSnapshot.refresh();
+        return popularSnapshot.getStats();
+    }
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выдача списков в формате NDJSON: один JSON-объект на строку.
+ * <p>
+ * Элементы сериализуются по одному по мере чтения потока, поэтому список целиком в памяти не собирается.
+ * Запись блокируется, пока клиент не примет очередную порцию данных: медленный клиент
+ * сам ограничивает скорость чтения страниц из базы. Тело пишется в асинхронном потоке MVC,
+ * который при {@code spring.threads.virtual.enabled=true} является виртуальным и не занимает поток платформы.
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonWriter {
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Создаёт ответ, тело которого пишет элементы потока и закрывает его.
+     *
+     * @param items элементы ответа
+     * @return ответ с типом {@code application/x-ndjson} для потоковой выдачи
+     */
+    public ResponseEntity<StreamingResponseBody> write(Stream<?> items) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> {
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (items; JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                Iterator<?> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                }
+            }
+        });
+    }
+}
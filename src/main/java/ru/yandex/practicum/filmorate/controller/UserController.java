@@ -3,13 +3,20 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.dto.film.FilmDto;
 import ru.yandex.practicum.filmorate.dto.user.UserDto;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FriendshipService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * REST-контроллер для работы с пользователями.
@@ -21,17 +28,59 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
 
+    private static final String MISSING_IDS_HEADER = "X-Missing-Ids";
+    private static final String NEXT_AFTER_HEADER = "X-Next-After";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final UserService userService;
     private final FriendshipService friendshipService;
+    private final RecommendationService recommendationService;
+    private final NdjsonWriter ndjsonWriter;
 
     /**
      * Получить список всех пользователей.
      *
+     * @param fields поля ответа через запятую (необязательно, ID возвращается всегда)
      * @return список DTO всех пользователей
      */
     @GetMapping
-    public List<UserDto> getUsers() {
-        return userService.getAllUsers();
+    public List<UserDto> getUsers(@RequestParam(required = false) List<String> fields) {
+        return userService.getAllUsers(fields);
+    }
+
+    /**
+     * Выдать всех пользователей потоком в формате NDJSON, по одному пользователю на строку.
+     * GET /users/stream?fields=id,login
+     *
+     * @param fields поля ответа через запятую (необязательно, ID возвращается всегда)
+     * @return ответ для потоковой выдачи
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers(@RequestParam(required = false) List<String> fields) {
+        return ndjsonWriter.write(userService.streamAllUsers(fields));
+    }
+
+    /**
+     * Получить пользователей по списку идентификаторов в порядке запроса.
+     * ID, для которых пользователь не найден, перечисляются в заголовке {@code X-Missing-Ids}.
+     *
+     * @param ids    идентификаторы пользователей
+     * @param fields поля ответа через запятую (необязательно, ID возвращается всегда)
+     * @return список DTO найденных пользователей
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<UserDto>> getUsersByIds(@RequestParam List<Integer> ids,
+                                                       @RequestParam(required = false) List<String> fields) {
+        List<UserDto> users = userService.getUsersByIds(ids, fields);
+        Set<Integer> found = users.stream().map(UserDto::getId).collect(Collectors.toSet());
+        String missing = ids.stream()
+                .filter(id -> !found.contains(id))
+                .distinct()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        return missing.isEmpty()
+                ? ResponseEntity.ok(users)
+                : ResponseEntity.ok().header(MISSING_IDS_HEADER, missing).body(users);
     }
 
     /**
@@ -60,11 +109,12 @@ public class UserController {
      * Получить пользователя по идентификатору.
      *
      * @param userId идентификатор пользователя
+     * @param fields поля ответа через запятую (необязательно, ID возвращается всегда)
      * @return DTO пользователя
      */
     @GetMapping("/{userId}")
-    public UserDto getUserById(@PathVariable Integer userId) {
-        return userService.getUserById(userId);
+    public UserDto getUserById(@PathVariable Integer userId, @RequestParam(required = false) List<String> fields) {
+        return userService.getUserById(userId, fields);
     }
 
     /**
@@ -90,14 +140,30 @@ public class UserController {
     }
 
     /**
-     * Получить список друзей пользователя.
+     * Получить список друзей пользователя. С параметрами {@code after} и {@code limit}
+     * возвращается страница друзей в порядке возрастания ID; если она заполнена,
+     * значение для следующего запроса передаётся в заголовке {@code X-Next-After}.
      *
-     * @param id идентификатор пользователя
+     * @param id     идентификатор пользователя
+     * @param fields поля ответа через запятую (необязательно, ID возвращается всегда)
+     * @param after  ID последнего друга предыдущей страницы (необязательно)
+     * @param limit  размер страницы (необязательно, по умолчанию 100)
      * @return список DTO друзей пользователя
      */
     @GetMapping("/{id}/friends")
-    public List<UserDto> getUserFriends(@PathVariable Integer id) {
-        return userService.getUserFriends(id);
+    public ResponseEntity<List<UserDto>> getUserFriends(@PathVariable Integer id,
+                                                        @RequestParam(required = false) List<String> fields,
+                                                        @RequestParam(required = false) Integer after,
+                                                        @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(userService.getUserFriends(id, fields));
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        List<UserDto> friends = userService.getUserFriends(id, fields, after == null ? 0 : after, pageSize);
+        return friends.size() < pageSize
+                ? ResponseEntity.ok(friends)
+                : ResponseEntity.ok().header(NEXT_AFTER_HEADER, String.valueOf(friends.get(friends.size() - 1).getId()))
+                .body(friends);
     }
 
     /**
@@ -111,4 +177,16 @@ public class UserController {
     public List<UserDto> getMutualFriends(@PathVariable Integer id, @PathVariable Integer otherId) {
         return userService.getMutualFriends(id, otherId);
     }
+
+    /**
+     * Получить рекомендованные фильмы на основе лайков пользователей с похожими вкусами.
+     *
+     * @param id    идентификатор пользователя
+     * @param count максимальное количество фильмов (по умолчанию 10)
+     * @return список DTO рекомендованных фильмов
+     */
+    @GetMapping("/{id}/recommended-films")
+    public List<FilmDto> getRecommendedFilms(@PathVariable Integer id, @RequestParam(defaultValue = "10") int count) {
+        return recommendationService.getRecommendedFilms(id, count);
+    }
 }
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.dto.film;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
@@ -11,8 +12,11 @@ import java.util.List;
  * DTO, представляющий данные фильма для ответов API.
  * Используется для передачи полной информации о фильме,
  * включая базовые атрибуты, жанры, рейтинг и лайки пользователей.
+ * <p>
+ * Поля, не выбранные параметром {@code fields}, остаются пустыми и не попадают в JSON.
  */
 @Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class FilmDto {
 
     /**
@@ -54,4 +58,9 @@ public class FilmDto {
      * Список email пользователей, поставивших лайк фильму.
      */
     private List<String> likes;
+
+    /**
+     * Количество лайков фильма (возвращается только по запросу через {@code fields}).
+     */
+    private Integer likesCount;
 }
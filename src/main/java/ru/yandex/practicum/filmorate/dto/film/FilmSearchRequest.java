@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.dto.film;
+
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Параметры поиска фильмов по каталогу.
+ * Заполняется из query-параметров запроса GET /films/search; все фильтры необязательны.
+ */
+@Data
+public class FilmSearchRequest {
+
+    /**
+     * Текст для поиска по названию и описанию фильма
+     */
+    private String q;
+
+    /**
+     * Жанры, которые должны быть у фильма одновременно
+     */
+    private List<Integer> genreIds = new ArrayList<>();
+
+    /**
+     * Допустимые рейтинги MPA (фильм должен иметь один из них)
+     */
+    private List<Integer> mpaIds = new ArrayList<>();
+
+    /**
+     * Минимальная продолжительность в минутах
+     */
+    private Integer minDuration;
+
+    /**
+     * Максимальная продолжительность в минутах
+     */
+    private Integer maxDuration;
+
+    /**
+     * Фильм вышел не раньше этой даты
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate releasedFrom;
+
+    /**
+     * Фильм вышел не позже этой даты
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate releasedTo;
+
+    /**
+     * Минимальное количество лайков
+     */
+    private Integer minLikes;
+
+    /**
+     * Максимальное количество лайков
+     */
+    private Integer maxLikes;
+
+    /**
+     * Поле сортировки: id, duration, releaseDate или likes
+     */
+    private String sort = "likes";
+
+    /**
+     * Направление сортировки: asc или desc
+     */
+    private String order = "desc";
+
+    /**
+     * Максимальное количество фильмов в ответе
+     */
+    @Positive(message = "Количество фильмов должно быть положительным числом")
+    private int count = 10;
+}
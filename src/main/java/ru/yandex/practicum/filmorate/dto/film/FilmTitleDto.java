@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.dto.film;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Краткое DTO фильма для подсказок автодополнения.
+ * Содержит только то, что нужно для отображения подсказки, и собирается без обращения к базе данных.
+ */
+@Data
+@AllArgsConstructor
+public class FilmTitleDto {
+
+    /**
+     * Уникальный идентификатор фильма.
+     */
+    private Integer id;
+
+    /**
+     * Название фильма.
+     */
+    private String name;
+}
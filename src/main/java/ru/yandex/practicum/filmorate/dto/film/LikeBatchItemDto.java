@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.dto.film;
+
+import lombok.Data;
+
+/**
+ * Элемент запроса пакетной обработки лайков POST /films/likes:batch.
+ */
+@Data
+public class LikeBatchItemDto {
+
+    /**
+     * Идентификатор фильма.
+     */
+    private Integer filmId;
+
+    /**
+     * Идентификатор пользователя.
+     */
+    private Integer userId;
+
+    /**
+     * Операция: {@code like} — поставить лайк, {@code unlike} — снять.
+     */
+    private String op;
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.dto.film;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Результат обработки одного элемента запроса POST /films/likes:batch.
+ * Результаты возвращаются в том же порядке, что и элементы запроса.
+ */
+@Data
+@AllArgsConstructor
+public class LikeBatchResultDto {
+
+    /**
+     * Идентификатор фильма из запроса.
+     */
+    private Integer filmId;
+
+    /**
+     * Идентификатор пользователя из запроса.
+     */
+    private Integer userId;
+
+    /**
+     * Операция из запроса.
+     */
+    private String op;
+
+    /**
+     * Итог операции.
+     */
+    private Status status;
+
+    /**
+     * Возможные итоги операции над лайком.
+     */
+    public enum Status {
+        /**
+         * Лайк поставлен.
+         */
+        LIKED,
+        /**
+         * Лайк уже был, ничего не изменилось.
+         */
+        ALREADY_LIKED,
+        /**
+         * Лайк снят.
+         */
+        UNLIKED,
+        /**
+         * Лайка не было, ничего не изменилось.
+         */
+        NOT_LIKED,
+        /**
+         * Фильм не найден.
+         */
+        FILM_NOT_FOUND,
+        /**
+         * Пользователь не найден.
+         */
+        USER_NOT_FOUND,
+        /**
+         * Не заполнены идентификаторы или указана неизвестная операция.
+         */
+        INVALID
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.dto.user;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.time.LocalDate;
@@ -8,8 +9,11 @@ import java.util.List;
 /**
  * DTO для передачи информации о пользователе через REST API.
  * Содержит основные данные о пользователе и список друзей.
+ * <p>
+ * Поля, не выбранные параметром {@code fields}, остаются пустыми и не попадают в JSON.
  */
 @Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class UserDto {
 
     /**
@@ -41,4 +45,14 @@ public class UserDto {
      * Уникальный идентификатор пользователя
      */
     private Integer id;
+
+    /**
+     * Количество друзей пользователя (возвращается только по запросу через {@code fields})
+     */
+    private Integer friendsCount;
+
+    /**
+     * Друзья пользователя с полями, выбранными как {@code friends.<поле>} (возвращается только по запросу)
+     */
+    private List<UserDto> friends;
 }
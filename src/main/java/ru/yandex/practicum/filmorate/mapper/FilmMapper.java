@@ -9,6 +9,7 @@ import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -18,6 +19,18 @@ import java.util.stream.Collectors;
 @Component
 public class FilmMapper {
 
+    /**
+     * Поля FilmDto, которые можно выбрать параметром {@code fields}.
+     */
+    public static final Set<String> FIELDS = Set.of("id", "name", "description", "duration", "releaseDate",
+            "mpa", "genres", "likes", "likesCount");
+
+    /**
+     * Поля FilmDto, которые возвращаются, если параметр {@code fields} не задан.
+     */
+    public static final Set<String> DEFAULT_FIELDS = Set.of("id", "name", "description", "duration", "releaseDate",
+            "mpa", "genres", "likes");
+
     /**
      * Преобразует объект Film в DTO FilmDto.
      *
@@ -41,6 +54,51 @@ public class FilmMapper {
         return filmDto;
     }
 
+    /**
+     * Преобразует объект Film в DTO FilmDto, заполняя только выбранные поля.
+     * Значения невыбранных полей не используются и могут быть {@code null}.
+     *
+     * @param film       объект модели фильма
+     * @param mpa        рейтинг MPA фильма
+     * @param genres     список жанров фильма
+     * @param likes      список имён пользователей, поставивших лайк
+     * @param likesCount количество лайков
+     * @param fields     выбранные поля из {@link #FIELDS}
+     * @return FilmDto с заполненными выбранными полями
+     */
+    public FilmDto toDto(Film film, Mpa mpa, List<Genre> genres, List<String> likes, Integer likesCount,
+                         Set<String> fields) {
+        FilmDto filmDto = new FilmDto();
+        if (fields.contains("id")) {
+            filmDto.setId(film.getId());
+        }
+        if (fields.contains("name")) {
+            filmDto.setName(film.getName());
+        }
+        if (fields.contains("description")) {
+            filmDto.setDescription(film.getDescription());
+        }
+        if (fields.contains("releaseDate")) {
+            filmDto.setReleaseDate(film.getReleaseDate());
+        }
+        if (fields.contains("duration")) {
+            filmDto.setDuration(film.getDuration());
+        }
+        if (fields.contains("mpa")) {
+            filmDto.setMpa(mpa);
+        }
+        if (fields.contains("genres")) {
+            filmDto.setGenres(genres);
+        }
+        if (fields.contains("likes")) {
+            filmDto.setLikes(likes);
+        }
+        if (fields.contains("likesCount")) {
+            filmDto.setLikesCount(likesCount);
+        }
+        return filmDto;
+    }
+
     /**
      * Преобразует PostFilmRequestDto в объект Film.
      * Используется при создании нового фильма.
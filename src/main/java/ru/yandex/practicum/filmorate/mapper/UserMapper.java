@@ -5,6 +5,7 @@ import ru.yandex.practicum.filmorate.dto.user.UserDto;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Mapper для преобразования между сущностью User и DTO UserDto.
@@ -13,6 +14,18 @@ import java.util.List;
 @Component
 public class UserMapper {
 
+    /**
+     * Поля UserDto, которые можно выбрать параметром {@code fields}.
+     */
+    public static final Set<String> FIELDS = Set.of("id", "name", "email", "login", "birthday",
+            "emailFriends", "friendsCount", "friends");
+
+    /**
+     * Поля UserDto, которые возвращаются, если параметр {@code fields} не задан.
+     */
+    public static final Set<String> DEFAULT_FIELDS = Set.of("id", "name", "email", "login", "birthday",
+            "emailFriends");
+
     /**
      * Преобразует объект User в UserDto.
      * Если имя пользователя пустое или состоит только из пробелов,
@@ -36,4 +49,73 @@ public class UserMapper {
         userDto.setEmailFriends(friendsEmails);
         return userDto;
     }
+
+    /**
+     * Преобразует объект User в UserDto, заполняя только выбранные поля.
+     * Количество друзей берётся из множества ID друзей пользователя.
+     *
+     * @param user          объект модели пользователя
+     * @param friendsEmails список email друзей пользователя (не используется, если поле не выбрано)
+     * @param fields        выбранные поля из {@link #FIELDS}
+     * @return объект UserDto с заполненными выбранными полями
+     */
+    public UserDto toDto(User user, List<String> friendsEmails, Set<String> fields) {
+        UserDto userDto = new UserDto();
+        if (fields.contains("id")) {
+            userDto.setId(user.getId());
+        }
+        if (fields.contains("name")) {
+            userDto.setName(user.getName().isBlank() ? user.getLogin() : user.getName());
+        }
+        if (fields.contains("email")) {
+            userDto.setEmail(user.getEmail());
+        }
+        if (fields.contains("login")) {
+            userDto.setLogin(user.getLogin());
+        }
+        if (fields.contains("birthday")) {
+            userDto.setBirthday(user.getBirthday());
+        }
+        if (fields.contains("emailFriends")) {
+            userDto.setEmailFriends(friendsEmails);
+        }
+        if (fields.contains("friendsCount")) {
+            userDto.setFriendsCount(user.getFriends().size());
+        }
+        return userDto;
+    }
+
+    /**
+     * Копирует в новый DTO только выбранные поля готового DTO пользователя.
+     * Список email друзей не копируется, а используется совместно с исходным DTO.
+     *
+     * @param source DTO пользователя со всеми полями
+     * @param fields выбранные поля из {@link #FIELDS}
+     * @return новый UserDto с выбранными полями
+     */
+    public UserDto project(UserDto source, Set<String> fields) {
+        UserDto userDto = new UserDto();
+        if (fields.contains("id")) {
+            userDto.setId(source.getId());
+        }
+        if (fields.contains("name")) {
+            userDto.setName(source.getName());
+        }
+        if (fields.contains("email")) {
+            userDto.setEmail(source.getEmail());
+        }
+        if (fields.contains("login")) {
+            userDto.setLogin(source.getLogin());
+        }
+        if (fields.contains("birthday")) {
+            userDto.setBirthday(source.getBirthday());
+        }
+        if (fields.contains("emailFriends")) {
+            userDto.setEmailFriends(source.getEmailFriends());
+        }
+        if (fields.contains("friendsCount")) {
+            userDto.setFriendsCount(source.getFriendsCount());
+        }
+        return userDto;
+    }
 }
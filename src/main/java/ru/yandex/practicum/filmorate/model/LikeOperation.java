@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Операция над лайком в пакетной обработке: поставить или снять лайк фильма от пользователя.
+ *
+ * @param filmId идентификатор фильма
+ * @param userId идентификатор пользователя
+ * @param like   {@code true} — поставить лайк, {@code false} — снять
+ */
+public record LikeOperation(int filmId, int userId, boolean like) {
+}
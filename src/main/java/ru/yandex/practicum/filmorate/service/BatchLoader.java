@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Пакетная загрузка объектов по ключу в духе DataLoader.
+ * <p>
+ * {@link #load} не обращается к хранилищу, а только запоминает ключ и возвращает отложенный результат.
+ * Когда результат впервые запрашивается, все накопленные к этому моменту ключи загружаются вместе —
+ * одним вызовом пакетной функции на каждые {@code maxBatchSize} ключей, то есть одним запросом
+ * {@code IN (...)} вместо запроса на каждый ключ. Загруженные значения запоминаются,
+ * и повторный {@code load} того же ключа к хранилищу не обращается.
+ * <p>
+ * Загрузчик не потокобезопасен и создаётся на один вызов сервиса.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип загружаемого объекта
+ */
+public final class BatchLoader<K, V> {
+
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+    private final int maxBatchSize;
+    private final Set<K> pending = new LinkedHashSet<>();
+    private final Map<K, V> loaded = new HashMap<>();
+    private int batchCount;
+
+    /**
+     * @param batchFunction загрузка объектов по набору ключей; отсутствующих ключей в результате нет
+     * @param maxBatchSize  максимальное количество ключей в одном вызове пакетной функции
+     */
+    public BatchLoader(Function<Collection<K>, Map<K, V>> batchFunction, int maxBatchSize) {
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Ставит ключ в очередь на загрузку.
+     *
+     * @param key ключ объекта
+     * @return отложенный результат: объект или {@code null}, если его нет
+     */
+    public Supplier<V> load(K key) {
+        if (!loaded.containsKey(key)) {
+            pending.add(key);
+        }
+        return () -> {
+            if (pending.contains(key)) {
+                dispatch();
+            }
+            return loaded.get(key);
+        };
+    }
+
+    /**
+     * Загружает объекты по списку ключей с сохранением порядка.
+     *
+     * @param keys ключи объектов
+     * @return объекты в порядке ключей; {@code null} на месте отсутствующих
+     */
+    public List<V> loadAll(List<K> keys) {
+        List<Supplier<V>> results = keys.stream()
+                .map(this::load)
+                .toList();
+        List<V> values = new ArrayList<>(results.size());
+        results.forEach(result -> values.add(result.get()));
+        return values;
+    }
+
+    /**
+     * Загружает все ключи, накопленные в очереди.
+     */
+    public void dispatch() {
+        List<K> keys = new ArrayList<>(pending);
+        pending.clear();
+        for (int from = 0; from < keys.size(); from += maxBatchSize) {
+            List<K> batch = keys.subList(from, Math.min(from + maxBatchSize, keys.size()));
+            Map<K, V> values = batchFunction.apply(batch);
+            batchCount++;
+            batch.forEach(key -> loaded.put(key, values.get(key)));
+        }
+    }
+
+    /**
+     * Возвращает количество вызовов пакетной функции.
+     *
+     * @return количество загруженных пакетов
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+}
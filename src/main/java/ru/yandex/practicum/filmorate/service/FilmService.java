@@ -1,58 +1,143 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.ValidationException;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.dto.film.FilmDto;
+import ru.yandex.practicum.filmorate.dto.film.FilmSearchRequest;
+import ru.yandex.practicum.filmorate.dto.film.FilmTitleDto;
+import ru.yandex.practicum.filmorate.dto.film.LikeBatchItemDto;
+import ru.yandex.practicum.filmorate.dto.film.LikeBatchResultDto;
 import ru.yandex.practicum.filmorate.dto.film.PostFilmRequestDto;
 import ru.yandex.practicum.filmorate.dto.film.UpdateFilmRequestDto;
+import ru.yandex.practicum.filmorate.dto.user.UserDto;
 import ru.yandex.practicum.filmorate.exception.NotEnoughDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmCoLikeIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmColumnStore;
+import ru.yandex.practicum.filmorate.storage.index.FilmFacetIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmFeatureLshIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmHeavyHitters;
+import ru.yandex.practicum.filmorate.storage.index.FilmTextIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmTitleTrie;
+import ru.yandex.practicum.filmorate.storage.index.FilmTrendingCounters;
+import ru.yandex.practicum.filmorate.storage.index.UserFilmLikesMatrix;
 import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 
 public class FilmService {
+    /**
+     * Вес количества лайков при ранжировании результатов полнотекстового поиска.
+     */
+    private static final double LIKES_BOOST = 0.1;
+    /**
+     * Формат окна для выборки набирающих популярность фильмов: число часов или дней, например 24h или 7d.
+     */
+    private static final Pattern WINDOW_PATTERN = Pattern.compile("(\\d{1,4})([hd])");
+    /**
+     * Количество блокировок, между которыми распределяются пользователи при обновлении in-memory индексов лайков.
+     */
+    private static final int USER_LOCK_STRIPES = 64;
+
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
     private final FilmMapper filmMapper;
     private final MpaStorage mpaStorage;
     private final GenreStorage genreStorage;
+    private final UserFilmLikesMatrix likesMatrix;
+    private final FilmCoLikeIndex coLikeIndex;
+    private final FilmFacetIndex facetIndex;
+    private final FilmColumnStore columnStore;
+    private final FilmTextIndex textIndex;
+    private final FilmTitleTrie titleTrie;
+    private final FilmFeatureLshIndex featureIndex;
+    private final FilmTrendingCounters trendingCounters;
+    private final FilmHeavyHitters heavyHitters;
+    private final int maxLikeBatchSize;
+    private final int maxMultiGetSize;
+    private final UserService userService;
+    private final RequestCoalescer coalescer;
+    private final PopularFilmsSnapshot popularSnapshot;
+    private final Lock[] userLocks = new Lock[USER_LOCK_STRIPES];
 
-    public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
-                       @Qualifier("userDbStorage") UserStorage userStorage,
+    public FilmService(FilmStorage filmStorage, UserStorage userStorage, UserService userService,
                        MpaStorage mpaStorage, GenreStorage genreStorage,
-                       FilmMapper filmMapper) {
+                       FilmMapper filmMapper, UserFilmLikesMatrix likesMatrix,
+                       FilmCoLikeIndex coLikeIndex, FilmFacetIndex facetIndex,
+                       FilmColumnStore columnStore, FilmTextIndex textIndex,
+                       FilmTitleTrie titleTrie, FilmFeatureLshIndex featureIndex,
+                       FilmTrendingCounters trendingCounters, FilmHeavyHitters heavyHitters,
+                       RequestCoalescer coalescer, PopularFilmsSnapshot popularSnapshot,
+                       @Value("${filmorate.likes-batch.max-size:1000}") int maxLikeBatchSize,
+                       @Value("${filmorate.multi-get.max-ids:100}") int maxMultiGetSize) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
+        this.userService = userService;
         this.filmMapper = filmMapper;
         this.mpaStorage = mpaStorage;
         this.genreStorage = genreStorage;
+        this.likesMatrix = likesMatrix;
+        this.coLikeIndex = coLikeIndex;
+        this.facetIndex = facetIndex;
+        this.columnStore = columnStore;
+        this.textIndex = textIndex;
+        this.titleTrie = titleTrie;
+        this.featureIndex = featureIndex;
+        this.trendingCounters = trendingCounters;
+        this.heavyHitters = heavyHitters;
+        this.coalescer = coalescer;
+        this.popularSnapshot = popularSnapshot;
+        this.maxLikeBatchSize = maxLikeBatchSize;
+        this.maxMultiGetSize = maxMultiGetSize;
+        Arrays.setAll(userLocks, i -> new ReentrantLock());
     }
 
     /**
-     * Добавляет лайк фильму от пользователя.
+     * Добавляет лайк фильму от пользователя. Повторный лайк ничего не меняет.
      *
      * <p>Шаги:
      * <ul>
-     * <li> Проверяет наличие фильма в хранилище по идентификатору. Если фильм отсутствует, выбрасывает NotFoundException.</li>
-     * <li> Проверяет наличие пользователя в хранилище по идентификатору. Если пользователь отсутствует, выбрасывает NotFoundException.</li>
-     * <li> Добавляет лайк фильму от указанного пользователя в хранилище.</li>
+     * <li> Добавляет лайк одним запросом к хранилищу, без предварительных проверок.</li>
+     * <li> Если хранилище сообщило о нарушении внешнего ключа, определяет, какого из объектов нет,
+     * и выбрасывает NotFoundException.</li>
+     * <li> Если лайк действительно добавлен, отмечает его в in-memory матрице лайков и индексе совместных лайков,
+     * обновляет количество лайков в колоночном снимке фильмов и в дереве названий
+     * и учитывает лайк в приближённом счётчике самых лайкаемых фильмов.</li>
      * </ul>
      *
      * @param filmId идентификатор фильма, которому добавляется лайк
@@ -60,23 +145,29 @@ public class FilmService {
      * @throws NotFoundException если фильм или пользователь с указанным идентификатором не найдены
      */
     public void addLike(Integer filmId, Integer userId) {
-        if (!filmStorage.isFilmPresent(filmId)) {
-            throw new NotFoundException("Фильм с id " + filmId + " не найден");
+        boolean added;
+        try {
+            added = filmStorage.addLike(filmId, userId);
+        } catch (DataIntegrityViolationException e) {
+            throw missingFilmOrUser(filmId, userId);
         }
-        if (!userStorage.isUserPresent(userId)) {
-            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+        if (added) {
+            indexLikeAdded(filmId, userId);
+            updateLikesCount(filmId);
+            heavyHitters.offer(filmId);
         }
-        filmStorage.addLike(filmId, userId);
     }
 
     /**
-     * Удаляет лайк у фильма от пользователя.
+     * Удаляет лайк у фильма от пользователя. Удаление несуществующего лайка ничего не меняет.
      *
      * <p>Шаги:
      * <ul>
-     * <li> Проверяет наличие фильма в хранилище по идентификатору. Если фильм отсутствует, выбрасывает NotFoundException.</li>
-     * <li> Проверяет наличие пользователя в хранилище по идентификатору. Если пользователь отсутствует, выбрасывает NotFoundException.</li>
-     * <li> Проверяет, поставил ли пользователь лайк фильму. Если лайк существует, удаляет его.</li>
+     * <li> Удаляет лайк одним запросом к хранилищу.</li>
+     * <li> Если лайк был удалён, убирает его из in-memory матрицы лайков и индекса совместных лайков,
+     * обновляет количество лайков в колоночном снимке и в дереве названий.</li>
+     * <li> Если удалять было нечего, проверяет наличие фильма и пользователя
+     * и выбрасывает NotFoundException, если одного из них нет.</li>
      * </ul>
      *
      * @param filmId идентификатор фильма, у которого удаляется лайк
@@ -84,15 +175,95 @@ public class FilmService {
      * @throws NotFoundException если фильм или пользователь с указанным идентификатором не найдены
      */
     public void removeLike(Integer filmId, Integer userId) {
+        if (filmStorage.removeLike(filmId, userId)) {
+            indexLikeRemoved(filmId, userId);
+            updateLikesCount(filmId);
+            return;
+        }
         if (!filmStorage.isFilmPresent(filmId)) {
             throw new NotFoundException("Фильм с id " + filmId + " не найден");
         }
         if (!userStorage.isUserPresent(userId)) {
             throw new NotFoundException("Пользователь с id " + userId + " не найден");
         }
-        if (getFilmOrThrow(filmId).getLikes().contains(userId)) {
-            filmStorage.removeLike(filmId, userId);
+    }
+
+    /**
+     * Ставит и снимает лайки пакетом, например при синхронизации действий, накопленных офлайн.
+     *
+     * <p>Шаги:
+     * <ul>
+     * <li> Проверяет размер пакета. Если он больше допустимого, выбрасывает ValidationException.</li>
+     * <li> Проверяет существование всех фильмов и всех пользователей пакета двумя запросами.</li>
+     * <li> Помечает элементы с пустыми ID, неизвестной операцией или несуществующими фильмом
+     * либо пользователем; остальные применяет в хранилище одной транзакцией в исходном порядке.</li>
+     * <li> Для изменивших данные операций обновляет in-memory индексы так же, как одиночные лайки.</li>
+     * </ul>
+     *
+     * @param items операции над лайками
+     * @return результат каждой операции в порядке запроса
+     * @throws ValidationException если пакет слишком большой
+     */
+    public List<LikeBatchResultDto> applyLikeBatch(List<LikeBatchItemDto> items) {
+        if (items.size() > maxLikeBatchSize) {
+            throw new ValidationException("В пакете не может быть больше " + maxLikeBatchSize + " операций");
+        }
+        Set<Integer> films = filmStorage.getExistingFilmIds(items.stream()
+                .map(LikeBatchItemDto::getFilmId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        Set<Integer> users = userStorage.getExistingUserIds(items.stream()
+                .map(LikeBatchItemDto::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        LikeBatchResultDto.Status[] statuses = new LikeBatchResultDto.Status[items.size()];
+        List<LikeOperation> operations = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            LikeBatchItemDto item = items.get(i);
+            if (item.getFilmId() == null || item.getUserId() == null
+                    || !("like".equals(item.getOp()) || "unlike".equals(item.getOp()))) {
+                statuses[i] = LikeBatchResultDto.Status.INVALID;
+            } else if (!films.contains(item.getFilmId())) {
+                statuses[i] = LikeBatchResultDto.Status.FILM_NOT_FOUND;
+            } else if (!users.contains(item.getUserId())) {
+                statuses[i] = LikeBatchResultDto.Status.USER_NOT_FOUND;
+            } else {
+                operations.add(new LikeOperation(item.getFilmId(), item.getUserId(), "like".equals(item.getOp())));
+                positions.add(i);
+            }
         }
+
+        boolean[] changed = operations.isEmpty() ? new boolean[0] : filmStorage.applyLikeOperations(operations);
+        for (int i = 0; i < operations.size(); i++) {
+            LikeOperation op = operations.get(i);
+            if (op.like()) {
+                statuses[positions.get(i)] = changed[i]
+                        ? LikeBatchResultDto.Status.LIKED : LikeBatchResultDto.Status.ALREADY_LIKED;
+                if (changed[i]) {
+                    indexLikeAdded(op.filmId(), op.userId());
+                    heavyHitters.offer(op.filmId());
+                }
+            } else {
+                statuses[positions.get(i)] = changed[i]
+                        ? LikeBatchResultDto.Status.UNLIKED : LikeBatchResultDto.Status.NOT_LIKED;
+                if (changed[i]) {
+                    indexLikeRemoved(op.filmId(), op.userId());
+                }
+            }
+        }
+        operations.stream()
+                .map(LikeOperation::filmId)
+                .distinct()
+                .forEach(this::updateLikesCount);
+
+        List<LikeBatchResultDto> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            LikeBatchItemDto item = items.get(i);
+            results.add(new LikeBatchResultDto(item.getFilmId(), item.getUserId(), item.getOp(), statuses[i]));
+        }
+        return results;
     }
 
     /**
@@ -100,38 +271,272 @@ public class FilmService {
      *
      * <p>Шаги:
      * <ul>
-     * <li> Получает список всех фильмов из хранилища.</li>
-     * <li> Сортирует фильмы по количеству лайков в порядке убывания.</li>
-     * <li> Ограничивает количество фильмов до указанного значения {@code count}.</li>
-     * <li> Преобразует каждый фильм в DTO с использованием метода {@code getFilmDtoOrThrow}.</li>
-     * <li> Собирает преобразованные DTO в список и возвращает его.</li>
+     * <li> Получает из индекса фасетов множество ID фильмов, подходящих под заданные фильтры
+     * (пересечение BitSet-ов жанра, рейтинга и года выхода).</li>
+     * <li> Отбирает {@code count} фильмов с наибольшим количеством лайков с помощью ограниченной кучи.</li>
+     * <li> Загружает DTO фильмов пакетно методом {@code getFilmDtosOrThrow}.</li>
      * </ul>
+     * Без фильтров по рейтингу и году ID фильмов топа берутся из {@link PopularFilmsSnapshot},
+     * если снимок достаточно свежий.
+     * Одновременные вызовы с одинаковыми аргументами объединяются через {@link RequestCoalescer}.
      *
-     * @param count максимальное количество фильмов в списке
+     * @param count   максимальное количество фильмов в списке
+     * @param genreId идентификатор жанра или {@code null}, если фильтр не задан
+     * @param mpaId   идентификатор рейтинга MPA или {@code null}, если фильтр не задан
+     * @param year    год выхода или {@code null}, если фильтр не задан
+     * @param fields  поля DTO для ответа или {@code null}, если нужны поля по умолчанию
      * @return список самых популярных фильмов в виде объектов {@code FilmDto}
+     * @throws NotFoundException   если жанр или рейтинг с указанным идентификатором не существует
+     * @throws ValidationException если запрошено неизвестное поле
+     */
+    public List<FilmDto> getMostLikedFilms(int count, Integer genreId, Integer mpaId, Integer year,
+                                           List<String> fields) {
+        Set<String> selected = resolveFields(fields);
+        Genre genre = genreId == null ? null : Genre.getGenreById(genreId);
+        Mpa mpa = mpaId == null ? null : Mpa.getMpaById(mpaId);
+        if (mpa == null && year == null) {
+            Optional<List<Integer>> snapshotTop = popularSnapshot.getTop(genre, count);
+            if (snapshotTop.isPresent()) {
+                return getFilmDtosOrThrow(snapshotTop.get(), selected);
+            }
+        }
+        return coalescer.execute("getMostLikedFilms", Arrays.asList(count, genre, mpa, year, selected),
+                () -> computeMostLikedFilms(count, genre, mpa, year, selected));
+    }
+
+    private List<FilmDto> computeMostLikedFilms(int count, Genre genre, Mpa mpa, Integer year, Set<String> selected) {
+        BitSet candidates = facetIndex.filter(genre, mpa, year);
+        return getFilmDtosOrThrow(likesMatrix.topByLikes(candidates, count), selected);
+    }
+
+    /**
+     * Возвращает фильмы, набравшие больше всего лайков за последнее время.
+     *
+     * <p>Шаги:
+     * <ul>
+     * <li> В режиме {@code exact} разбирает длину окна (если формат неверный или окно длиннее периода
+     * хранения счётчиков, выбрасывает ValidationException) и отбирает фильмы по in-memory счётчикам
+     * лайков в скользящем окне, без запросов к таблице лайков.</li>
+     * <li> В режиме {@code approx} берёт фильмы из приближённого счётчика (Count-Min sketch и Space-Saving).
+     * Окно в этом режиме не используется: старые лайки вытесняются периодическим затуханием счётчиков.</li>
+     * <li> Загружает DTO фильмов пакетно методом {@code getFilmDtosOrThrow}.</li>
+     * </ul>
+     *
+     * @param window длина окна, например {@code 24h} или {@code 7d}
+     * @param count  максимальное количество фильмов в списке
+     * @param mode   режим подсчёта: {@code exact} или {@code approx}
+     * @return список фильмов по убыванию количества лайков
+     * @throws ValidationException если длина окна или режим заданы неверно
+     */
+    public List<FilmDto> getTrendingFilms(String window, int count, String mode) {
+        List<Integer> filmIds = switch (mode) {
+            case "exact" -> trendingCounters.getTrendingFilms(toWindowHours(window), count);
+            case "approx" -> heavyHitters.getTopFilms(count);
+            default -> throw new ValidationException("Неизвестный режим " + mode + ", ожидается exact или approx");
+        };
+        return getFilmDtosOrThrow(filmIds, FilmMapper.DEFAULT_FIELDS);
+    }
+
+    /**
+     * Ищет фильмы по произвольной комбинации фильтров и, если задан, по тексту запроса.
+     *
+     * <p>Шаги:
+     * <ul>
+     * <li> Преобразует параметры запроса в условия колоночного снимка: маски жанров и рейтингов,
+     * диапазоны продолжительности, даты выхода и количества лайков.</li>
+     * <li> Если текст запроса не задан, выполняет фильтрацию и сортировку в колоночном снимке фильмов.</li>
+     * <li> Если текст задан, находит фильмы по полнотекстовому индексу, оставляет только подходящие
+     * под фильтры и сортирует по BM25-релевантности, усиленной количеством лайков.
+     * Параметры сортировки в этом случае не используются.</li>
+     * <li> Загружает DTO найденных фильмов пакетно методом {@code getFilmDtosOrThrow}.</li>
+     * </ul>
+     *
+     * @param request параметры поиска
+     * @return список найденных фильмов в виде объектов {@code FilmDto}
+     * @throws NotFoundException   если передан несуществующий жанр или рейтинг
+     * @throws ValidationException если передано неизвестное поле или направление сортировки
+     */
+    public List<FilmDto> searchFilms(FilmSearchRequest request) {
+        if (request.getQ() == null || request.getQ().isBlank()) {
+            FilmColumnStore.Query query = toColumnQuery(request, toSortColumn(request.getSort()),
+                    isDescending(request.getOrder()), request.getCount());
+            return getFilmDtosOrThrow(Arrays.stream(columnStore.search(query)).boxed().toList(),
+                    FilmMapper.DEFAULT_FIELDS);
+        }
+        Map<Integer, Double> relevance = textIndex.search(request.getQ());
+        if (hasFilters(request)) {
+            int[] allowed = columnStore.search(toColumnQuery(request, FilmColumnStore.Column.ID, false,
+                    Integer.MAX_VALUE));
+            relevance.keySet().removeIf(filmId -> Arrays.binarySearch(allowed, filmId) < 0);
+        }
+        Comparator<Map.Entry<Integer, Double>> byRank = Comparator.comparingDouble(entry ->
+                entry.getValue() * (1 + LIKES_BOOST * Math.log1p(likesMatrix.getLikesCount(entry.getKey()))));
+        List<Integer> filmIds = relevance.entrySet().stream()
+                .sorted(byRank.reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(request.getCount())
+                .map(Map.Entry::getKey)
+                .toList();
+        return getFilmDtosOrThrow(filmIds, FilmMapper.DEFAULT_FIELDS);
+    }
+
+    /**
+     * Возвращает подсказки для автодополнения названия фильма.
+     *
+     * <p>Шаги:
+     * <ul>
+     * <li> Спускается по дереву названий до узла префикса.</li>
+     * <li> Возвращает закешированные в узле самые популярные фильмы без обращения к хранилищу.</li>
+     * </ul>
+     *
+     * @param prefix начало названия фильма
+     * @param limit  максимальное количество подсказок
+     * @return список подсказок по убыванию количества лайков
      */
-    public List<FilmDto> getMostLikedFilms(int count) {
-        return filmStorage.getAllFilms().stream()
-                .sorted(Comparator.comparing((Film film) -> film.getLikes().size()).reversed())
-                .limit(count)
-                .map(film -> getFilmDtoOrThrow(film.getId()))
+    public List<FilmTitleDto> autocomplete(String prefix, int limit) {
+        return titleTrie.complete(prefix, limit).stream()
+                .map(entry -> new FilmTitleDto(entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
     }
 
     /**
-     * Возвращает DTO фильма по его идентификатору.
+     * Возвращает фильмы, которые чаще всего лайкают вместе с указанным.
+     *
+     * <p>Шаги:
+     * <ul>
+     * <li> Проверяет количество фильмов. Если оно меньше 1, выбрасывает ValidationException.</li>
+     * <li> Проверяет наличие фильма в хранилище по идентификатору. Если фильм отсутствует, выбрасывает NotFoundException.</li>
+     * <li> Берёт ближайших соседей фильма из индекса совместных лайков.</li>
+     * <li> Загружает DTO фильмов пакетно методом {@code getFilmDtosOrThrow}.</li>
+     * </ul>
+     *
+     * @param filmId идентификатор фильма
+     * @param count  максимальное количество фильмов в списке
+     * @return список похожих фильмов в виде объектов {@code FilmDto}
+     * @throws NotFoundException   если фильм с указанным идентификатором не найден
+     * @throws ValidationException если количество фильмов меньше 1
+     */
+    public List<FilmDto> getSimilarFilms(Integer filmId, int count) {
+        requirePositiveCount(count);
+        if (!filmStorage.isFilmPresent(filmId)) {
+            throw new NotFoundException("Фильм с id " + filmId + " не найден");
+        }
+        return getFilmDtosOrThrow(coLikeIndex.getSimilarFilms(filmId, count), FilmMapper.DEFAULT_FIELDS);
+    }
+
+    /**
+     * Возвращает фильмы, похожие на указанный по жанрам, рейтингу, году выхода и продолжительности.
+     * В отличие от {@code getSimilarFilms} не зависит от лайков, поэтому работает и для новых фильмов.
+     *
+     * <p>Шаги:
+     * <ul>
+     * <li> Проверяет количество фильмов. Если оно меньше 1, выбрасывает ValidationException.</li>
+     * <li> Проверяет наличие фильма в хранилище по идентификатору. Если фильм отсутствует, выбрасывает NotFoundException.</li>
+     * <li> Берёт приближённых ближайших соседей фильма из LSH-индекса признаков.</li>
+     * <li> Загружает DTO фильмов пакетно методом {@code getFilmDtosOrThrow}.</li>
+     * </ul>
+     *
+     * @param filmId идентификатор фильма
+     * @param count  максимальное количество фильмов в списке
+     * @return список похожих фильмов в виде объектов {@code FilmDto}
+     * @throws NotFoundException   если фильм с указанным идентификатором не найден
+     * @throws ValidationException если количество фильмов меньше 1
+     */
+    public List<FilmDto> getAlikeFilms(Integer filmId, int count) {
+        requirePositiveCount(count);
+        if (!filmStorage.isFilmPresent(filmId)) {
+            throw new NotFoundException("Фильм с id " + filmId + " не найден");
+        }
+        return getFilmDtosOrThrow(featureIndex.getAlikeFilms(filmId, count), FilmMapper.DEFAULT_FIELDS);
+    }
+
+    /**
+     * Возвращает DTO фильмов с полями по умолчанию в порядке переданных ID.
+     *
+     * <p>Шаги:
+     * <ul>
+     * <li> Загружает DTO фильмов пакетно методом {@code getFilmDtosOrThrow}.</li>
+     * </ul>
+     *
+     * @param ids идентификаторы фильмов
+     * @return DTO фильмов в порядке ID
+     * @throws NotFoundException если фильм с одним из ID не найден
+     */
+    public List<FilmDto> getFilmsByIdsOrThrow(List<Integer> ids) {
+        return getFilmDtosOrThrow(ids, FilmMapper.DEFAULT_FIELDS);
+    }
+
+    /**
+     * Возвращает страницу пользователей, поставивших лайк фильму, в порядке возрастания ID.
+     *
+     * <p>Шаги:
+     * <ul>
+     * <li> Проверяет размер страницы. Если он вне допустимого диапазона, выбрасывает ValidationException.</li>
+     * <li> Проверяет существование фильма. Если фильм отсутствует, выбрасывает NotFoundException.</li>
+     * <li> Выбирает ID пользователей по ключу: следующие после {@code after} по индексу (film_id, user_id).</li>
+     * <li> Загружает пользователей страницы пакетно через {@code UserService}.</li>
+     * </ul>
+     *
+     * @param filmId идентификатор фильма
+     * @param after  ID последнего пользователя предыдущей страницы (0 для первой страницы)
+     * @param limit  размер страницы
+     * @param fields поля DTO пользователя для ответа или {@code null}, если нужны поля по умолчанию
+     * @return список DTO пользователей
+     * @throws NotFoundException   если фильм с указанным идентификатором не найден
+     * @throws ValidationException если размер страницы вне допустимого диапазона или запрошено неизвестное поле
+     */
+    public List<UserDto> getFilmLikers(Integer filmId, int after, int limit, List<String> fields) {
+        if (limit < 1 || limit > maxMultiGetSize) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + maxMultiGetSize);
+        }
+        if (filmStorage.getExistingFilmIds(List.of(filmId)).isEmpty()) {
+            throw new NotFoundException("Фильм с id " + filmId + " не найден");
+        }
+        return userService.getUsersByIds(filmStorage.getFilmLikerIds(filmId, after, limit), fields);
+    }
+
+    /**
+     * Возвращает DTO фильма по его идентификатору только с выбранными полями.
+     * Имена лайкнувших пользователей и рейтинг загружаются, только если эти поля выбраны.
      *
      * <p>Шаги:
      * <ul>
-     * <li> Вызывает метод {@code getFilmDtoOrThrow}, который проверяет наличие фильма и преобразует его в DTO.</li>
+     * <li> Параллельно, каждый в своём виртуальном потоке, загружает фильм с жанрами,
+     * имена лайкнувших пользователей и справочник рейтингов.</li>
+     * <li> Если фильм не найден или один из запросов упал, сразу выбрасывает исключение,
+     * не дожидаясь остальных запросов.</li>
+     * <li> Преобразует фильм в DTO с выбранными полями.</li>
      * </ul>
+     * Время ответа определяется самым медленным из запросов, а не их суммой.
      *
-     * @param id идентификатор фильма
-     * @return DTO фильма с заполненными полями
-     * @throws NotFoundException если фильм с указанным идентификатором не найден
+     * @param id     идентификатор фильма
+     * @param fields поля DTO для ответа или {@code null}, если нужны поля по умолчанию
+     * @return DTO фильма с заполненными выбранными полями
+     * @throws NotFoundException   если фильм с указанным идентификатором не найден
+     * @throws ValidationException если запрошено неизвестное поле
      */
-    public FilmDto getFilmById(Integer id) {
-        return getFilmDtoOrThrow(id);
+    public FilmDto getFilmById(Integer id, List<String> fields) {
+        Set<String> selected = resolveFields(fields);
+        try (SubtaskScope scope = new SubtaskScope()) {
+            CompletableFuture<Film> film = scope.fork(() -> filmStorage.getFilm(id)
+                    .orElseThrow(() -> new NotFoundException("Фильм с id " + id + " не найден")));
+            CompletableFuture<List<String>> likes = selected.contains("likes")
+                    ? scope.fork(() -> filmStorage.getUsersNamesLikedFilm(id))
+                    : CompletableFuture.completedFuture(null);
+            CompletableFuture<List<Mpa>> ratings = selected.contains("mpa")
+                    ? scope.fork(mpaStorage::getAllMpa)
+                    : CompletableFuture.completedFuture(List.of());
+            scope.join();
+
+            Film loaded = film.join();
+            Mpa mpa = selected.contains("mpa")
+                    ? ratings.join().stream()
+                    .filter(rating -> Objects.equals(rating.getId(), loaded.getMpa().getId()))
+                    .findFirst()
+                    .orElseThrow(() -> new NotFoundException("Рейтинг с таким id не существует"))
+                    : null;
+            return filmMapper.toDto(loaded, mpa, loaded.getGenres(), likes.join(),
+                    likesMatrix.getLikesCount(id), selected);
+        }
     }
 
     /**
@@ -140,15 +545,72 @@ public class FilmService {
      * <p>Шаги:
      * <ul>
      * <li> Получает список всех фильмов из хранилища.</li>
-     * <li> Для каждого фильма вызывает метод {@code getFilmDtoOrThrow}, чтобы преобразовать сущность фильма в DTO.</li>
-     * <li> Собирает преобразованные DTO в список и возвращает его.</li>
+     * <li> Преобразует фильмы в DTO с выбранными полями методом {@code toDtos}: имена лайкнувших
+     * пользователей загружаются пакетами, а не отдельным запросом на каждый фильм.</li>
      * </ul>
+     * Одновременные вызовы с одинаковыми полями объединяются через {@link RequestCoalescer}.
      *
+     * @param fields поля DTO для ответа или {@code null}, если нужны поля по умолчанию
      * @return список всех фильмов в виде объектов {@code FilmDto}
+     * @throws ValidationException если запрошено неизвестное поле
      */
-    public List<FilmDto> getAllFilms() {
-        return filmStorage.getAllFilms().stream()
-                .map(film -> getFilmDtoOrThrow(film.getId()))
+    public List<FilmDto> getAllFilms(List<String> fields) {
+        Set<String> selected = resolveFields(fields);
+        return coalescer.execute("getAllFilms", List.of(selected),
+                () -> toDtos(filmStorage.getAllFilms(), selected));
+    }
+
+    /**
+     * Возвращает все фильмы ленивым потоком DTO для потоковой выдачи большого списка.
+     *
+     * <p>Шаги:
+     * <ul>
+     * <li> Проверяет выбранные поля сразу, до начала выдачи.</li>
+     * <li> По мере чтения потока выбирает следующую страницу ID фильмов по первичному ключу
+     * и загружает её пакетно методом {@code getFilmsByIds}.</li>
+     * </ul>
+     * Соединение с базой занимается только на время запроса страницы, а не на всё время выдачи,
+     * поэтому медленный клиент не удерживает соединение. Фильмы, добавленные во время выдачи,
+     * попадают в поток, если их ID больше уже выданных.
+     *
+     * @param fields поля DTO для ответа или {@code null}, если нужны поля по умолчанию
+     * @return поток фильмов в порядке возрастания ID
+     * @throws ValidationException если запрошено неизвестное поле
+     */
+    public Stream<FilmDto> streamAllFilms(List<String> fields) {
+        resolveFields(fields);
+        return Stream.iterate(filmStorage.getFilmIds(0, maxMultiGetSize), ids -> !ids.isEmpty(),
+                        ids -> ids.size() < maxMultiGetSize ? List.<Integer>of()
+                                : filmStorage.getFilmIds(ids.get(ids.size() - 1), maxMultiGetSize))
+                .flatMap(ids -> getFilmsByIds(ids, fields).stream());
+    }
+
+    /**
+     * Возвращает фильмы по списку идентификаторов в виде DTO.
+     *
+     * <p>Шаги:
+     * <ul>
+     * <li> Убирает повторы ID, сохраняя порядок. Если ID больше допустимого, выбрасывает ValidationException.</li>
+     * <li> Загружает фильмы с жанрами, имена лайкнувших пользователей и рейтинги MPA тремя запросами
+     * независимо от количества ID. Имена и рейтинги не загружаются, если эти поля не выбраны.</li>
+     * <li> Собирает DTO в порядке запроса; несуществующие ID пропускаются.</li>
+     * </ul>
+     *
+     * @param ids    идентификаторы фильмов
+     * @param fields поля DTO для ответа или {@code null}, если нужны поля по умолчанию
+     * @return найденные фильмы в порядке запроса
+     * @throws ValidationException если передано слишком много ID или запрошено неизвестное поле
+     */
+    public List<FilmDto> getFilmsByIds(List<Integer> ids, List<String> fields) {
+        Set<String> selected = resolveFields(fields);
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.size() > maxMultiGetSize) {
+            throw new ValidationException("Можно запросить не больше " + maxMultiGetSize + " фильмов");
+        }
+        Map<Integer, FilmDto> films = loadFilmDtos(uniqueIds, selected);
+        return uniqueIds.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
@@ -162,6 +624,7 @@ public class FilmService {
      * <li> Извлекает идентификаторы жанров добавленного фильма и добавляет их в хранилище жанров для фильма.</li>
      * <li> Преобразует жанры из запроса в список объектов Genre, используя GenreStorage.</li>
      * <li> Получает объект MPA из хранилища по идентификатору из запроса.</li>
+     * <li> Добавляет фильм в in-memory индексы каталога.</li>
      * <li> Преобразует добавленную сущность фильма в DTO с заполненными полями жанров и рейтинга.</li>
      * </ul>
      *
@@ -180,6 +643,7 @@ public class FilmService {
                 .collect(Collectors.toList());
         Mpa addedFilmMpa = mpaStorage.getMpaById(postFilmRequestDto.getMpa().getId())
                 .orElseThrow(() -> new NotFoundException("Рейтинг с таким id не существует"));
+        indexFilm(addedFilm);
         return filmMapper.toDto(addedFilm, addedFilmMpa, addedFilmGenres, new ArrayList<>());
     }
 
@@ -195,6 +659,7 @@ public class FilmService {
      * <li> Извлекает идентификаторы жанров обновленного фильма и обновляет их в хранилище жанров для фильма.</li>
      * <li> Преобразует жанры из запроса в список объектов Genre, используя GenreStorage.</li>
      * <li> Получает объект MPA из хранилища по идентификатору из запроса.</li>
+     * <li> Обновляет фильм в in-memory индексах каталога.</li>
      * <li> Получает список имен пользователей, поставивших лайк фильму.</li>
      * <li> Преобразует обновленную сущность фильма в DTO с заполненными полями жанров, рейтинга и лайков.</li>
      * </ul>
@@ -221,6 +686,7 @@ public class FilmService {
                     .collect(Collectors.toList());
             Mpa updatedFilmMpa = mpaStorage.getMpaById(updateFilmRequestDto.getMpa().getId())
                     .orElseThrow(() -> new NotFoundException("Рейтинг с таким id не существует"));
+            indexFilm(film);
             List<String> updatedFilmLikes = filmStorage.getUsersNamesLikedFilm(film.getId());
             return filmMapper.toDto(updatedFilm, updatedFilmMpa, updatedFilmGenres, updatedFilmLikes);
         }
@@ -228,57 +694,244 @@ public class FilmService {
         throw new NotFoundException("Фильм с id " + film.getId() + " не найден");
     }
 
+    private static FilmColumnStore.Query toColumnQuery(FilmSearchRequest request, FilmColumnStore.Column sortBy,
+                                                       boolean descending, int limit) {
+        int genreMask = FilmColumnStore.genreMask(request.getGenreIds().stream()
+                .map(Genre::getGenreById)
+                .toList());
+        int mpaMask = request.getMpaIds().isEmpty() ? -1 : request.getMpaIds().stream()
+                .map(Mpa::getMpaById)
+                .mapToInt(mpa -> 1 << mpa.ordinal())
+                .reduce(0, (a, b) -> a | b);
+        return new FilmColumnStore.Query(genreMask, mpaMask,
+                orMin(request.getMinDuration()), orMax(request.getMaxDuration()),
+                request.getReleasedFrom() == null ? Integer.MIN_VALUE : (int) request.getReleasedFrom().toEpochDay(),
+                request.getReleasedTo() == null ? Integer.MAX_VALUE : (int) request.getReleasedTo().toEpochDay(),
+                orMin(request.getMinLikes()), orMax(request.getMaxLikes()),
+                sortBy, descending, limit);
+    }
+
+    private static boolean hasFilters(FilmSearchRequest request) {
+        return !request.getGenreIds().isEmpty() || !request.getMpaIds().isEmpty()
+                || request.getMinDuration() != null || request.getMaxDuration() != null
+                || request.getReleasedFrom() != null || request.getReleasedTo() != null
+                || request.getMinLikes() != null || request.getMaxLikes() != null;
+    }
+
+    private static int orMin(Integer value) {
+        return value == null ? Integer.MIN_VALUE : value;
+    }
+
+    private static int orMax(Integer value) {
+        return value == null ? Integer.MAX_VALUE : value;
+    }
+
+    private static FilmColumnStore.Column toSortColumn(String sort) {
+        return switch (sort) {
+            case "id" -> FilmColumnStore.Column.ID;
+            case "duration" -> FilmColumnStore.Column.DURATION;
+            case "releaseDate" -> FilmColumnStore.Column.RELEASE_DATE;
+            case "likes" -> FilmColumnStore.Column.LIKES;
+            default -> throw new ValidationException("Неизвестное поле сортировки " + sort);
+        };
+    }
+
+    private int toWindowHours(String window) {
+        Matcher matcher = WINDOW_PATTERN.matcher(window);
+        if (!matcher.matches()) {
+            throw new ValidationException("Неверный формат окна " + window + ", ожидается, например, 24h или 7d");
+        }
+        int hours = Integer.parseInt(matcher.group(1)) * (matcher.group(2).equals("d") ? 24 : 1);
+        if (hours <= 0 || hours > trendingCounters.getRetentionHours()) {
+            throw new ValidationException("Окно должно быть от 1 до " + trendingCounters.getRetentionHours() + " часов");
+        }
+        return hours;
+    }
+
+    private static boolean isDescending(String order) {
+        return switch (order) {
+            case "asc" -> false;
+            case "desc" -> true;
+            default -> throw new ValidationException("Неизвестное направление сортировки " + order);
+        };
+    }
+
+    /**
+     * Проверяет запрошенное количество фильмов в подборке.
+     *
+     * @param count количество фильмов
+     * @throws ValidationException если количество меньше 1
+     */
+    private static void requirePositiveCount(int count) {
+        if (count < 1) {
+            throw new ValidationException("Количество фильмов должно быть положительным");
+        }
+    }
+
     /**
-     * Возвращает сущность фильма по его идентификатору или выбрасывает исключение, если фильм не найден.
+     * Определяет по нарушению внешнего ключа, какого объекта не существует: фильма или пользователя.
+     * Проверка наличия выполняется только в этом случае, а не перед каждым лайком.
      *
-     * @param id идентификатор фильма
-     * @return сущность фильма
-     * @throws NotFoundException если фильм с указанным идентификатором не найден
+     * @param filmId идентификатор фильма
+     * @param userId идентификатор пользователя
+     * @return исключение с описанием отсутствующего объекта
      */
-    private Film getFilmOrThrow(Integer id) {
-        return filmStorage.getFilm(id)
-                .orElseThrow(() -> new NotFoundException("Фильм с id " + id + " не найден"));
+    private NotFoundException missingFilmOrUser(Integer filmId, Integer userId) {
+        if (!filmStorage.isFilmPresent(filmId)) {
+            return new NotFoundException("Фильм с id " + filmId + " не найден");
+        }
+        return new NotFoundException("Пользователь с id " + userId + " не найден");
     }
 
     /**
-     * Возвращает сущность пользователя по его идентификатору или выбрасывает исключение, если пользователь не найден.
+     * Обновляет фильм во всех in-memory индексах каталога после его добавления или изменения.
      *
-     * @param id идентификатор пользователя
-     * @return сущность пользователя
-     * @throws NotFoundException если пользователь с указанным идентификатором не найден
+     * @param film фильм с заполненными ID, жанрами, рейтингом и датой выхода
      */
-    private User getUserOrThrow(Integer id) {
-        return userStorage.getUser(id)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id " + id + " не найден"));
+    private void indexFilm(Film film) {
+        facetIndex.index(film);
+        columnStore.upsert(film);
+        textIndex.index(film);
+        titleTrie.index(film);
+        featureIndex.index(film);
+        popularSnapshot.markChanged();
     }
 
     /**
-     * Возвращает DTO фильма по его идентификатору или выбрасывает исключение, если фильм не найден.
+     * Отмечает добавленный лайк в матрице лайков и индексе совместных лайков.
+     * Оба обновления выполняются под блокировкой пользователя: иначе при одновременных лайках
+     * двух фильмов одним пользователем каждый вызов увидит в его лайках второй фильм,
+     * и пара будет посчитана дважды.
      *
-     * <p>Шаги:
-     * <ul>
-     * <li> Проверяет наличие фильма в хранилище по идентификатору. Если фильм отсутствует, выбрасывает NotFoundException.</li>
-     * <li> Получает сущность фильма из хранилища. Если фильм отсутствует, выбрасывает NotFoundException.</li>
-     * <li> Получает рейтинг фильма из хранилища.</li>
-     * <li> Получает список жанров фильма из хранилища.</li>
-     * <li> Получает список имён пользователей, поставивших лайк фильму.</li>
-     * <li> Преобразует сущность фильма в DTO с использованием FilmMapper.</li>
-     * </ul>
+     * @param filmId идентификатор фильма
+     * @param userId идентификатор пользователя
+     */
+    private void indexLikeAdded(int filmId, int userId) {
+        Lock lock = userLock(userId);
+        lock.lock();
+        try {
+            likesMatrix.addLike(filmId, userId);
+            coLikeIndex.onLikeAdded(filmId, likesMatrix.getLikedFilms(userId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Убирает удалённый лайк из матрицы лайков и индекса совместных лайков под блокировкой пользователя.
      *
-     * @param id идентификатор фильма
-     * @return DTO фильма с заполненными полями рейтинга, жанров и лайков
-     * @throws NotFoundException если фильм с указанным идентификатором не найден
+     * @param filmId идентификатор фильма
+     * @param userId идентификатор пользователя
      */
-    private FilmDto getFilmDtoOrThrow(Integer id) {
-        if (!filmStorage.isFilmPresent(id)) {
-            throw new NotFoundException("Фильм с id " + id + " не найден");
+    private void indexLikeRemoved(int filmId, int userId) {
+        Lock lock = userLock(userId);
+        lock.lock();
+        try {
+            likesMatrix.removeLike(filmId, userId);
+            coLikeIndex.onLikeRemoved(filmId, likesMatrix.getLikedFilms(userId));
+        } finally {
+            lock.unlock();
         }
-        Film film = filmStorage.getFilm(id)
-                .orElseThrow(() -> new NotFoundException("Фильм с id " + id + " не найден"));
-        Mpa mpa = mpaStorage.getMpaById(film.getMpa().getId())
-                .orElseThrow(() -> new NotFoundException("Рейтинг с таким id не существует"));
-        List<Genre> genres = film.getGenres();
-        List<String> likes = filmStorage.getUsersNamesLikedFilm(id);
-        return filmMapper.toDto(film, mpa, genres, likes);
+    }
+
+    private Lock userLock(int userId) {
+        return userLocks[Math.floorMod(userId, USER_LOCK_STRIPES)];
+    }
+
+    /**
+     * Переносит актуальное количество лайков фильма из матрицы лайков в индексы, ранжирующие по популярности.
+     *
+     * @param filmId идентификатор фильма
+     */
+    private void updateLikesCount(Integer filmId) {
+        int likesCount = likesMatrix.getLikesCount(filmId);
+        columnStore.setLikes(filmId, likesCount);
+        titleTrie.updateLikes(filmId, likesCount);
+        popularSnapshot.markChanged();
+    }
+
+    /**
+     * Возвращает DTO фильмов по списку ID в том же порядке или выбрасывает исключение,
+     * если какого-то фильма нет. ID собираются в {@link BatchLoader} и загружаются методом
+     * {@code loadFilmDtos} пакетами по {@code maxMultiGetSize}, а не отдельными запросами на каждый фильм.
+     *
+     * @param ids    идентификаторы фильмов
+     * @param fields выбранные поля DTO
+     * @return DTO фильмов в порядке ID
+     * @throws NotFoundException если фильм с одним из ID не найден
+     */
+    private List<FilmDto> getFilmDtosOrThrow(List<Integer> ids, Set<String> fields) {
+        BatchLoader<Integer, FilmDto> loader = new BatchLoader<>(batch -> loadFilmDtos(batch, fields),
+                maxMultiGetSize);
+        List<FilmDto> films = loader.loadAll(ids);
+        for (int i = 0; i < films.size(); i++) {
+            if (films.get(i) == null) {
+                throw new NotFoundException("Фильм с id " + ids.get(i) + " не найден");
+            }
+        }
+        return films;
+    }
+
+    /**
+     * Загружает фильмы по набору ID и собирает их DTO тремя запросами независимо от количества ID:
+     * фильмы с жанрами, имена лайкнувших пользователей и рейтинги MPA.
+     *
+     * @param ids    идентификаторы фильмов
+     * @param fields выбранные поля DTO
+     * @return DTO найденных фильмов по ID; несуществующие ID пропускаются
+     */
+    private Map<Integer, FilmDto> loadFilmDtos(Collection<Integer> ids, Set<String> fields) {
+        return toDtos(filmStorage.getFilms(ids), fields).stream()
+                .collect(Collectors.toMap(FilmDto::getId, Function.identity()));
+    }
+
+    /**
+     * Преобразует загруженные фильмы в DTO с выбранными полями.
+     * Имена лайкнувших пользователей загружаются пакетами по {@code maxMultiGetSize} фильмов,
+     * рейтинги — одним запросом; если эти поля не выбраны, запросов нет.
+     *
+     * @param films  сущности фильмов с жанрами
+     * @param fields выбранные поля DTO
+     * @return DTO фильмов в том же порядке
+     */
+    private List<FilmDto> toDtos(List<Film> films, Set<String> fields) {
+        Map<Integer, List<String>> likes = new HashMap<>();
+        if (fields.contains("likes")) {
+            List<Integer> ids = films.stream().map(Film::getId).toList();
+            for (int from = 0; from < ids.size(); from += maxMultiGetSize) {
+                likes.putAll(filmStorage.getUsersNamesLikedFilms(
+                        ids.subList(from, Math.min(from + maxMultiGetSize, ids.size()))));
+            }
+        }
+        Map<Integer, Mpa> ratings = fields.contains("mpa")
+                ? mpaStorage.getAllMpa().stream().collect(Collectors.toMap(Mpa::getId, Function.identity()))
+                : Map.of();
+        return films.stream()
+                .map(film -> filmMapper.toDto(film, ratings.get(film.getMpa().getId()), film.getGenres(),
+                        likes.getOrDefault(film.getId(), new ArrayList<>()), likesMatrix.getLikesCount(film.getId()),
+                        fields))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Разбирает список полей из параметра {@code fields}. ID фильма возвращается всегда.
+     *
+     * @param fields запрошенные поля или {@code null}
+     * @return выбранные поля; поля по умолчанию, если список не задан
+     * @throws ValidationException если запрошено неизвестное поле
+     */
+    private static Set<String> resolveFields(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return FilmMapper.DEFAULT_FIELDS;
+        }
+        Set<String> selected = new HashSet<>(fields);
+        selected.add("id");
+        for (String field : selected) {
+            if (!FilmMapper.FIELDS.contains(field)) {
+                throw new ValidationException("Неизвестное поле " + field + ", допустимые поля: "
+                        + String.join(", ", new TreeSet<>(FilmMapper.FIELDS)));
+            }
+        }
+        return selected;
     }
 }
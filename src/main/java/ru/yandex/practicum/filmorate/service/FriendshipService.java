@@ -1,6 +1,5 @@
 package ru.yandex.practicum.filmorate.service;
 
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
@@ -16,51 +15,55 @@ public class FriendshipService {
 
     private final FriendshipStorage friendshipStorage;
     private final UserStorage userStorage;
+    private final UserDtoCache userCache;
 
     public FriendshipService(FriendshipStorage friendshipStorage,
-                             @Qualifier("userDbStorage") UserStorage userStorage) {
+                             UserStorage userStorage, UserDtoCache userCache) {
         this.friendshipStorage = friendshipStorage;
         this.userStorage = userStorage;
+        this.userCache = userCache;
     }
 
     /**
-     * Добавляет друга пользователю.
+     * Добавляет друга пользователю одним условным запросом к хранилищу.
      * Проверяет:
      * - что пользователь не добавляет самого себя,
-     * - что оба пользователя существуют,
-     * - что пользователи еще не являются друзьями.
+     * - что пользователи еще не являются друзьями (по результату вставки).
+     * Если одного из пользователей нет, хранилище сообщает о нарушении внешнего ключа,
+     * которое {@code ErrorHandler} превращает в ответ 404.
+     * После добавления DTO пользователя удаляется из {@link UserDtoCache}.
      *
      * @param userId   идентификатор пользователя
      * @param friendId идентификатор друга
      * @throws IllegalArgumentException если userId == friendId
-     * @throws NotFoundException        если один из пользователей не найден
      * @throws InternalServerException  если пользователи уже дружат
      */
     public void addFriend(int userId, int friendId) {
         if (userId == friendId) {
             throw new IllegalArgumentException("Нельзя добавлять в друзья самого себя");
         }
-        if (!userStorage.isUserPresent(userId) || !userStorage.isUserPresent(friendId)) {
-            throw new NotFoundException("Пользователь не найден");
-        }
-        if (friendshipStorage.areFriends(userId, friendId)) {
+        if (!friendshipStorage.addFriend(userId, friendId)) {
             throw new InternalServerException("Пользователи уже дружат");
         }
-        friendshipStorage.addFriend(userId, friendId);
+        userCache.invalidate(userId);
     }
 
     /**
-     * Удаляет друга пользователя.
-     * Проверяет существование обоих пользователей.
+     * Удаляет друга пользователя одним запросом к хранилищу.
+     * Существование пользователей проверяется только если удалять было нечего.
+     * После удаления DTO пользователя удаляется из {@link UserDtoCache}.
      *
      * @param userId   идентификатор пользователя
      * @param friendId идентификатор друга
      * @throws NotFoundException если один из пользователей не найден
      */
     public void removeFriend(int userId, int friendId) {
+        if (friendshipStorage.removeFriend(userId, friendId)) {
+            userCache.invalidate(userId);
+            return;
+        }
         if (!userStorage.isUserPresent(userId) || !userStorage.isUserPresent(friendId)) {
             throw new NotFoundException("Пользователь не найден");
         }
-        friendshipStorage.removeFriend(userId, friendId);
     }
 }
@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.index.FilmFacetIndex;
+import ru.yandex.practicum.filmorate.storage.index.UserFilmLikesMatrix;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Заранее вычисленный топ популярных фильмов, всего и по каждому жанру.
+ * <p>
+ * Фоновая задача раз в {@code refresh-ms} отбирает по {@code size} самых лайкаемых фильмов
+ * из in-memory индексов и подменяет снимок целиком через volatile-ссылку. Снимок хранит только
+ * упорядоченные ID фильмов: DTO нужного количества фильмов с выбранными полями собирает
+ * {@code FilmService} пакетной загрузкой, поэтому обновление снимка не обращается к базе.
+ * Если данные не менялись с прошлого расчёта, снимок не пересчитывается.
+ * <p>
+ * Каждое изменение лайков или фильмов увеличивает номер версии данных.
+ * Снимок отдаётся, если он построен на текущей версии или отстаёт от неё не дольше
+ * {@code max-staleness-ms}; иначе {@code FilmService} считает топ сам.
+ * По умолчанию (0) отставание не допускается: лайк сразу виден в {@code GET /films/popular},
+ * как того требует контракт API, а снимок отдаётся, пока данные не менялись.
+ * При нагрузке, где допустимо отставание топа, задаётся окно, например 60000 —
+ * тогда снимок отдаётся и между обновлениями.
+ */
+@Slf4j
+@Component
+public class PopularFilmsSnapshot {
+
+    private final FilmFacetIndex facetIndex;
+    private final UserFilmLikesMatrix likesMatrix;
+    private final int size;
+    private final long maxStalenessMillis;
+    private final Clock clock = Clock.systemUTC();
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile Snapshot snapshot;
+
+    public PopularFilmsSnapshot(FilmFacetIndex facetIndex, UserFilmLikesMatrix likesMatrix,
+                                @Value("${filmorate.popular-snapshot.size:100}") int size,
+                                @Value("${filmorate.popular-snapshot.max-staleness-ms:0}") long maxStalenessMillis) {
+        this.facetIndex = facetIndex;
+        this.likesMatrix = likesMatrix;
+        this.size = size;
+        this.maxStalenessMillis = maxStalenessMillis;
+    }
+
+    /**
+     * Отмечает, что данные, попадающие в снимок, изменились.
+     */
+    public void markChanged() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Пересчитывает снимок и атомарно подменяет им предыдущий, если данные изменились.
+     * Версия данных запоминается до начала расчёта, поэтому изменения во время расчёта
+     * делают новый снимок устаревшим, а не теряются.
+     */
+    @Scheduled(fixedDelayString = "${filmorate.popular-snapshot.refresh-ms:30000}")
+    public synchronized void refresh() {
+        long builtVersion = version.get();
+        Snapshot current = snapshot;
+        if (current != null && current.version() == builtVersion) {
+            return;
+        }
+        Instant builtAt = clock.instant();
+        List<Integer> total = List.copyOf(likesMatrix.topByLikes(facetIndex.filter(null, null, null), size));
+        Map<Genre, List<Integer>> byGenre = new EnumMap<>(Genre.class);
+        for (Genre genre : Genre.values()) {
+            byGenre.put(genre, List.copyOf(likesMatrix.topByLikes(facetIndex.filter(genre, null, null), size)));
+        }
+        snapshot = new Snapshot(builtVersion, builtAt, total, byGenre);
+        log.debug("Снимок популярных фильмов обновлён: {} фильмов в общем топе", total.size());
+    }
+
+    /**
+     * Возвращает топ популярных фильмов из снимка, если снимок достаточно свежий.
+     *
+     * @param genre жанр или {@code null} для всех фильмов
+     * @param count количество фильмов (не больше размера снимка)
+     * @return ID фильмов по убыванию количества лайков или пустой Optional, если снимок использовать нельзя
+     */
+    public Optional<List<Integer>> getTop(Genre genre, int count) {
+        Snapshot current = snapshot;
+        if (current == null || count <= 0 || count > size || !isFresh(current)) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        List<Integer> films = genre == null ? current.total() : current.byGenre().get(genre);
+        return Optional.of(films.subList(0, Math.min(count, films.size())));
+    }
+
+    /**
+     * Возвращает возраст снимка и счётчики его использования.
+     *
+     * @return статистика снимка
+     */
+    public Stats getStats() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return new Stats(null, -1, version.get(), hits.sum(), misses.sum());
+        }
+        return new Stats(current.builtAt(), Duration.between(current.builtAt(), clock.instant()).toMillis(),
+                version.get() - current.version(), hits.sum(), misses.sum());
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current.version() == version.get() || maxStalenessMillis > 0
+                && Duration.between(current.builtAt(), clock.instant()).toMillis() <= maxStalenessMillis;
+    }
+
+    private record Snapshot(long version, Instant builtAt, List<Integer> total, Map<Genre, List<Integer>> byGenre) {
+    }
+
+    /**
+     * Статистика снимка популярных фильмов.
+     *
+     * @param builtAt        время построения снимка или {@code null}, если снимок ещё не построен
+     * @param ageMillis      возраст снимка в миллисекундах (-1, если снимок ещё не построен)
+     * @param pendingChanges количество изменений данных после построения снимка
+     * @param hits           запросов, обслуженных из снимка
+     * @param misses         запросов, для которых снимок не подошёл
+     */
+    public record Stats(Instant builtAt, long ageMillis, long pendingChanges, long hits, long misses) {
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.validation.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dto.film.FilmDto;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.storage.index.UserFilmLikesMatrix;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.List;
+
+/**
+ * Сервис рекомендаций фильмов на основе коллаборативной фильтрации.
+ * Рекомендует пользователю фильмы, которые понравились пользователям с похожими лайками.
+ */
+@Slf4j
+@Service
+public class RecommendationService {
+
+    /**
+     * Количество похожих пользователей, лайки которых учитываются в рекомендации.
+     */
+    private static final int NEIGHBOURS_LIMIT = 20;
+
+    private final UserFilmLikesMatrix likesMatrix;
+    private final UserStorage userStorage;
+    private final FilmService filmService;
+
+    public RecommendationService(UserFilmLikesMatrix likesMatrix,
+                                 UserStorage userStorage,
+                                 FilmService filmService) {
+        this.likesMatrix = likesMatrix;
+        this.userStorage = userStorage;
+        this.filmService = filmService;
+    }
+
+    /**
+     * Возвращает рекомендованные пользователю фильмы.
+     *
+     * <p>Шаги:
+     * <ul>
+     * <li> Проверяет количество фильмов. Если оно меньше 1, выбрасывает ValidationException.</li>
+     * <li> Проверяет наличие пользователя. Если пользователь отсутствует, выбрасывает NotFoundException.</li>
+     * <li> Подбирает фильмы по лайкам пользователей с наибольшей мерой Жаккара
+     * методом {@link UserFilmLikesMatrix#recommendFilms}.</li>
+     * <li> Загружает DTO {@code count} фильмов с наибольшим весом одним пакетом.</li>
+     * </ul>
+     *
+     * @param userId идентификатор пользователя
+     * @param count  максимальное количество рекомендованных фильмов
+     * @return список DTO рекомендованных фильмов
+     * @throws NotFoundException   если пользователь с указанным идентификатором не найден
+     * @throws ValidationException если количество фильмов меньше 1
+     */
+    public List<FilmDto> getRecommendedFilms(int userId, int count) {
+        if (count < 1) {
+            throw new ValidationException("Количество фильмов должно быть положительным");
+        }
+        if (!userStorage.isUserPresent(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+        }
+        return filmService.getFilmsByIdsOrThrow(likesMatrix.recommendFilms(userId, NEIGHBOURS_LIMIT, count));
+    }
+}
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Объединение одинаковых одновременных запросов на чтение (single flight).
+ * <p>
+ * Вызовы с одинаковым именем метода и аргументами, пришедшие, пока первый из них ещё выполняется,
+ * не запускают вычисление заново, а ждут общий {@link CompletableFuture} и получают тот же результат
+ * или то же исключение. Если {@code reuse-ms} больше нуля, успешный результат дополнительно
+ * переиспользуется в течение этого времени после завершения вычисления; ответ при этом может
+ * отставать от данных не больше чем на {@code reuse-ms}. Ошибки не переиспользуются.
+ * <p>
+ * Результат передаётся всем ожидающим вызовам как есть, поэтому вызывающий код не должен его изменять.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final long reuseMillis;
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Key, Recent> recent = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    public RequestCoalescer(@Value("${filmorate.coalescing.reuse-ms:0}") long reuseMillis) {
+        this.reuseMillis = reuseMillis;
+    }
+
+    /**
+     * Выполняет вычисление или присоединяется к уже выполняющемуся вычислению с тем же ключом.
+     *
+     * @param method      имя метода, часть ключа
+     * @param args        аргументы метода, часть ключа (допускаются {@code null})
+     * @param computation вычисление результата
+     * @param <T>         тип результата
+     * @return результат вычисления
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String method, List<?> args, Supplier<T> computation) {
+        Key key = new Key(method, args);
+        calls.increment();
+        if (reuseMillis > 0) {
+            Recent cached = recent.get(key);
+            if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+                reused.increment();
+                return (T) cached.value();
+            }
+        }
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            collapsed.increment();
+            return (T) await(existing);
+        }
+        executions.increment();
+        try {
+            T value = computation.get();
+            if (reuseMillis > 0) {
+                recent.put(key, new Recent(value, System.currentTimeMillis() + reuseMillis));
+            }
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Возвращает счётчики с момента запуска приложения.
+     *
+     * @return количество вызовов, реальных вычислений, присоединений к выполняющимся вычислениям
+     * и переиспользований недавних результатов
+     */
+    public Stats getStats() {
+        return new Stats(calls.sum(), executions.sum(), collapsed.sum(), reused.sum());
+    }
+
+    /**
+     * Удаляет устаревшие результаты, чтобы ключи с редкими аргументами не копились в памяти.
+     */
+    @Scheduled(fixedDelayString = "${filmorate.coalescing.evict-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        recent.values().removeIf(cached -> cached.expiresAt() <= now);
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record Key(String method, List<?> args) {
+    }
+
+    private record Recent(Object value, long expiresAt) {
+    }
+
+    /**
+     * Счётчики объединения запросов.
+     *
+     * @param calls      всего вызовов
+     * @param executions вычислений, выполненных на самом деле
+     * @param collapsed  вызовов, дождавшихся уже выполнявшегося вычисления
+     * @param reused     вызовов, получивших недавний результат без вычисления
+     */
+    public record Stats(long calls, long executions, long collapsed, long reused) {
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Область параллельного выполнения независимых подзадач одного запроса на виртуальных потоках.
+ * <p>
+ * Подзадачи запускаются методом {@link #fork}, затем {@link #join} ждёт, пока все они завершатся
+ * или одна из них упадёт. При первой ошибке {@code join} сразу выбрасывает её, а остальные подзадачи
+ * отменяются: их результаты больше никому не нужны. Уже выполняющиеся запросы к базе не прерываются —
+ * прерывание потока во время файлового ввода-вывода H2 закрывает канал файла базы; такой запрос
+ * просто дорабатывает в своём виртуальном потоке.
+ * <p>
+ * Область используется в try-with-resources и не переживает вызвавший её метод.
+ */
+final class SubtaskScope implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<CompletableFuture<?>> subtasks = new ArrayList<>();
+    private final CompletableFuture<Void> failure = new CompletableFuture<>();
+
+    /**
+     * Запускает подзадачу в отдельном виртуальном потоке.
+     *
+     * @param task подзадача
+     * @param <T>  тип результата
+     * @return результат подзадачи, доступный после {@link #join}
+     */
+    <T> CompletableFuture<T> fork(Supplier<T> task) {
+        CompletableFuture<T> subtask = CompletableFuture.supplyAsync(task, executor);
+        subtask.whenComplete((result, e) -> {
+            if (e != null) {
+                failure.completeExceptionally(e);
+            }
+        });
+        subtasks.add(subtask);
+        return subtask;
+    }
+
+    /**
+     * Ждёт завершения всех подзадач или первой ошибки.
+     *
+     * @throws RuntimeException первое исключение, выброшенное подзадачей
+     */
+    void join() {
+        CompletableFuture<Void> all = CompletableFuture.allOf(subtasks.toArray(CompletableFuture[]::new));
+        try {
+            CompletableFuture.anyOf(all, failure).join();
+        } catch (CompletionException e) {
+            subtasks.forEach(subtask -> subtask.cancel(false));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Закрывает область. Новые подзадачи после этого не принимаются.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.user.UserDto;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Кэш DTO пользователей по ID для просмотра профилей.
+ * <p>
+ * В DTO пользователя входят email его друзей, поэтому запись устаревает не только при изменении
+ * самого пользователя, но и при смене email любого из его друзей. Для такой инвалидации кэш ведёт
+ * обратный индекс друзей: для каждого ID — пользователи в кэше, у которых он есть в друзьях.
+ * Индекс строится только по закэшированным записям: пользователей вне кэша инвалидировать не нужно.
+ * <p>
+ * Загрузка выполняется без блокировки кэша. Если пока запись загружалась, произошла любая инвалидация,
+ * загруженное значение возвращается, но не кэшируется: оно могло быть прочитано до изменения.
+ * Кэш ограничен {@code max-size} записями и вытесняет давно не запрошенные; 0 отключает кэш.
+ * <p>
+ * Возвращаемые DTO общие для всех вызовов, их нельзя изменять.
+ */
+@Component
+public class UserDtoCache {
+
+    private final int maxSize;
+    private final Map<Integer, Entry> entries;
+    private final Map<Integer, Set<Integer>> followers = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long invalidations;
+
+    public UserDtoCache(@Value("${filmorate.user-cache.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() <= UserDtoCache.this.maxSize) {
+                    return false;
+                }
+                unlinkFollowers(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Возвращает DTO пользователя из кэша или загружает и кэширует его.
+     *
+     * @param userId ID пользователя
+     * @param loader загрузка DTO со всеми полями и ID друзей пользователя
+     * @return DTO пользователя
+     */
+    public UserDto get(int userId, Supplier<Entry> loader) {
+        long stamp;
+        synchronized (this) {
+            Entry cached = entries.get(userId);
+            if (cached != null) {
+                hits.increment();
+                return cached.user();
+            }
+            stamp = invalidations;
+        }
+        misses.increment();
+        Entry loaded = loader.get();
+        synchronized (this) {
+            if (maxSize > 0 && stamp == invalidations) {
+                remove(userId);
+                entries.put(userId, loaded);
+                loaded.friendIds().forEach(friendId ->
+                        followers.computeIfAbsent(friendId, id -> new HashSet<>()).add(userId));
+            }
+        }
+        return loaded.user();
+    }
+
+    /**
+     * Удаляет из кэша пользователя, у которого изменились собственные данные или список друзей.
+     *
+     * @param userId ID пользователя
+     */
+    public synchronized void invalidate(int userId) {
+        invalidations++;
+        remove(userId);
+    }
+
+    /**
+     * Удаляет из кэша пользователя и всех, у кого он в друзьях, например после смены его email.
+     *
+     * @param userId ID пользователя
+     */
+    public synchronized void invalidateWithFollowers(int userId) {
+        invalidations++;
+        remove(userId);
+        Set<Integer> affected = followers.remove(userId);
+        if (affected != null) {
+            List.copyOf(affected).forEach(this::remove);
+        }
+    }
+
+    /**
+     * Возвращает размер кэша и счётчики обращений.
+     *
+     * @return статистика кэша
+     */
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), hits.sum(), misses.sum());
+    }
+
+    private void remove(int userId) {
+        Entry removed = entries.remove(userId);
+        if (removed != null) {
+            unlinkFollowers(userId, removed);
+        }
+    }
+
+    private void unlinkFollowers(int userId, Entry entry) {
+        for (Integer friendId : entry.friendIds()) {
+            Set<Integer> users = followers.get(friendId);
+            if (users != null) {
+                users.remove(userId);
+                if (users.isEmpty()) {
+                    followers.remove(friendId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Запись кэша.
+     *
+     * @param user      DTO пользователя со всеми полями
+     * @param friendIds ID друзей пользователя, чьи email входят в DTO
+     */
+    public record Entry(UserDto user, Set<Integer> friendIds) {
+    }
+
+    /**
+     * Статистика кэша DTO пользователей.
+     *
+     * @param size   количество записей
+     * @param hits   запросов, обслуженных из кэша
+     * @param misses запросов, потребовавших загрузки
+     */
+    public record Stats(int size, long hits, long misses) {
+    }
+}
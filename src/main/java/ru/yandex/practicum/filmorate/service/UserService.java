@@ -1,7 +1,8 @@
 package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
+import jakarta.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.dto.user.UserDto;
 import ru.yandex.practicum.filmorate.exception.NotEnoughDataException;
@@ -11,8 +12,19 @@ import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Сервис для работы с пользователями.
@@ -21,17 +33,31 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 public class UserService {
+    private static final String FRIENDS_PREFIX = "friends.";
+    private static final Set<String> CACHED_FIELDS = UserMapper.FIELDS.stream()
+            .filter(field -> !field.equals("friends"))
+            .collect(Collectors.toUnmodifiableSet());
 
     private final UserStorage userStorage;
     private final UserMapper userMapper;
+    private final int maxMultiGetSize;
+    private final int maxEmbeddedFriends;
+    private final UserDtoCache userCache;
 
-    public UserService(@Qualifier("userDbStorage") UserStorage userStorage, UserMapper userMapper) {
+    public UserService(UserStorage userStorage, UserMapper userMapper,
+                       @Value("${filmorate.multi-get.max-ids:100}") int maxMultiGetSize,
+                       UserDtoCache userCache,
+                       @Value("${filmorate.fields.max-embedded:1000}") int maxEmbeddedFriends) {
         this.userStorage = userStorage;
         this.userMapper = userMapper;
+        this.maxMultiGetSize = maxMultiGetSize;
+        this.maxEmbeddedFriends = maxEmbeddedFriends;
+        this.userCache = userCache;
     }
 
     /**
      * Получить список взаимных друзей между двумя пользователями.
+     * Взаимные друзья загружаются пакетно, а не отдельным запросом на каждого.
      *
      * @param id       идентификатор первого пользователя
      * @param friendId идентификатор второго пользователя
@@ -41,47 +67,115 @@ public class UserService {
         User user = getUserOrThrow(id);
         User friend = getUserOrThrow(friendId);
 
-        return user.getFriends().stream()
+        List<Integer> mutualIds = user.getFriends().stream()
                 .filter(friend.getFriends()::contains)
-                .map(this::getUserDtoOrThrow)
                 .toList();
+        return getUserDtosOrThrow(mutualIds, UserMapper.DEFAULT_FIELDS);
     }
 
     /**
      * Получить пользователя по идентификатору.
+     * DTO со всеми полями берётся из {@link UserDtoCache}, а в ответ копируются только выбранные поля.
      *
-     * @param id идентификатор пользователя
+     * @param id     идентификатор пользователя
+     * @param fields поля DTO для ответа или {@code null}, если нужны поля по умолчанию
      * @return DTO пользователя
      */
-    public UserDto getUserById(Integer id) {
-        return getUserDtoOrThrow(id);
+    public UserDto getUserById(Integer id, List<String> fields) {
+        Set<String> selected = resolveFields(fields);
+        UserDto user = userMapper.project(userCache.get(id, () -> loadCacheEntry(id)), selected);
+        attachFriends(List.of(user), selected);
+        return user;
     }
 
     /**
      * Получить список друзей пользователя.
+     * Друзья загружаются пакетно, а не отдельным запросом на каждого.
      *
-     * @param id идентификатор пользователя
+     * @param id     идентификатор пользователя
+     * @param fields поля DTO для ответа или {@code null}, если нужны поля по умолчанию
      * @return список DTO друзей
      */
-    public List<UserDto> getUserFriends(Integer id) {
+    public List<UserDto> getUserFriends(Integer id, List<String> fields) {
+        Set<String> selected = resolveFields(fields);
         User user = getUserOrThrow(id);
-        return user.getFriends().stream()
-                .map(this::getUserDtoOrThrow)
-                .toList();
+        return attachFriends(getUserDtosOrThrow(List.copyOf(user.getFriends()), selected), selected);
+    }
+
+    /**
+     * Получить страницу друзей пользователя в порядке возрастания ID.
+     * Страница выбирается по первичному ключу friendship: {@code after} — ID последнего друга
+     * предыдущей страницы, поэтому стоимость запроса не зависит от номера страницы.
+     *
+     * @param id     идентификатор пользователя
+     * @param fields поля DTO для ответа или {@code null}, если нужны поля по умолчанию
+     * @param after  ID последнего друга предыдущей страницы (0 для первой страницы)
+     * @param limit  размер страницы
+     * @return список DTO друзей
+     * @throws ValidationException если размер страницы вне допустимого диапазона или запрошено неизвестное поле
+     */
+    public List<UserDto> getUserFriends(Integer id, List<String> fields, int after, int limit) {
+        if (limit < 1 || limit > maxMultiGetSize) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + maxMultiGetSize);
+        }
+        if (userStorage.getExistingUserIds(List.of(id)).isEmpty()) {
+            throw new NotFoundException("Пользователь с id " + id + " не найден");
+        }
+        return getUsersByIds(userStorage.getFriendIds(id, after, limit), fields);
     }
 
     /**
      * Получить список всех пользователей.
+     * Email друзей запрашиваются, только если поле {@code emailFriends} выбрано.
      *
+     * @param fields поля DTO для ответа или {@code null}, если нужны поля по умолчанию
      * @return список DTO всех пользователей
      */
-    public List<UserDto> getAllUsers() {
-        return userStorage.getAllUsers().stream()
-                .map(user -> {
-                    List<String> friendsEmails = userStorage.getFriendsEmails(user.getId());
-                    return userMapper.toDto(user, friendsEmails);
-                })
-                .collect(Collectors.toList());
+    public List<UserDto> getAllUsers(List<String> fields) {
+        Set<String> selected = resolveFields(fields);
+        return attachFriends(userStorage.getAllUsers().stream()
+                .map(user -> toDto(user, selected))
+                .collect(Collectors.toList()), selected);
+    }
+
+    /**
+     * Получить всех пользователей ленивым потоком для потоковой выдачи большого списка.
+     * Страницы ID выбираются по первичному ключу по мере чтения потока и загружаются
+     * пакетно методом {@code getUsersByIds}, поэтому соединение с базой не удерживается на всё время выдачи.
+     *
+     * @param fields поля DTO для ответа или {@code null}, если нужны поля по умолчанию
+     * @return поток пользователей в порядке возрастания ID
+     * @throws ValidationException если запрошено неизвестное поле
+     */
+    public Stream<UserDto> streamAllUsers(List<String> fields) {
+        resolveFields(fields);
+        return Stream.iterate(userStorage.getUserIds(0, maxMultiGetSize), ids -> !ids.isEmpty(),
+                        ids -> ids.size() < maxMultiGetSize ? List.<Integer>of()
+                                : userStorage.getUserIds(ids.get(ids.size() - 1), maxMultiGetSize))
+                .flatMap(ids -> getUsersByIds(ids, fields).stream());
+    }
+
+    /**
+     * Получить пользователей по списку идентификаторов.
+     * Пользователи и email их друзей загружаются двумя запросами независимо от количества ID.
+     * Повторы ID убираются, несуществующие ID пропускаются.
+     *
+     * @param ids    идентификаторы пользователей
+     * @param fields поля DTO для ответа или {@code null}, если нужны поля по умолчанию
+     * @return список DTO найденных пользователей в порядке запроса
+     * @throws ValidationException если передано слишком много ID или запрошено неизвестное поле
+     */
+    public List<UserDto> getUsersByIds(List<Integer> ids, List<String> fields) {
+        Set<String> selected = resolveFields(fields);
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.size() > maxMultiGetSize) {
+            throw new ValidationException("Можно запросить не больше " + maxMultiGetSize + " пользователей");
+        }
+        Map<Integer, UserDto> users = loadUserDtos(uniqueIds, selected);
+        return attachFriends(uniqueIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .toList(), selected);
     }
 
     /**
@@ -101,6 +195,7 @@ public class UserService {
     /**
      * Обновить существующего пользователя.
      * Проверяет наличие ID и существование пользователя.
+     * Удаляет пользователя из {@link UserDtoCache}, а если изменился email — и всех, у кого он в друзьях.
      *
      * @param user объект пользователя с обновленными данными
      * @return DTO обновленного пользователя
@@ -110,28 +205,171 @@ public class UserService {
             log.error("Поле с ID пустое");
             throw new NotEnoughDataException("Не заполнено поле id", "id");
         }
-        if (userStorage.isUserPresent(user.getId())) {
+        Optional<User> existing = userStorage.getUser(user.getId());
+        if (existing.isPresent()) {
             if (user.getName() == null || user.getName().isBlank()) {
                 user.setName(user.getLogin());
             }
+            String oldEmail = existing.get().getEmail();
             List<String> friendsEmails = userStorage.getFriendsEmails(user.getId());
-            return userMapper.toDto(userStorage.updateUser(user), friendsEmails);
+            UserDto updated = userMapper.toDto(userStorage.updateUser(user), friendsEmails);
+            if (Objects.equals(oldEmail, user.getEmail())) {
+                userCache.invalidate(user.getId());
+            } else {
+                userCache.invalidateWithFollowers(user.getId());
+            }
+            return updated;
         }
         log.error("Пользователь с id {} не найден", user.getId());
         throw new NotFoundException("Пользователь с id " + user.getId() + " не найден");
     }
 
     /**
-     * Получить DTO пользователя по ID или выбросить исключение, если пользователь не найден.
+     * Загрузить запись кэша: DTO пользователя со всеми полями, кроме вложенных друзей, и ID его друзей.
      *
      * @param id идентификатор пользователя
+     * @return запись кэша
+     */
+    private UserDtoCache.Entry loadCacheEntry(int id) {
+        User user = getUserOrThrow(id);
+        return new UserDtoCache.Entry(toDto(user, CACHED_FIELDS), Set.copyOf(user.getFriends()));
+    }
+
+    /**
+     * Получить DTO пользователей по списку ID в том же порядке или выбросить исключение,
+     * если какого-то пользователя нет. ID собираются в {@link BatchLoader} и загружаются методом
+     * {@code loadUserDtos} пакетами по {@code maxMultiGetSize}.
+     *
+     * @param ids    идентификаторы пользователей
+     * @param fields выбранные поля DTO
+     * @return DTO пользователей в порядке ID
+     */
+    private List<UserDto> getUserDtosOrThrow(List<Integer> ids, Set<String> fields) {
+        BatchLoader<Integer, UserDto> loader = new BatchLoader<>(batch -> loadUserDtos(batch, fields),
+                maxMultiGetSize);
+        List<UserDto> users = loader.loadAll(ids);
+        for (int i = 0; i < users.size(); i++) {
+            if (users.get(i) == null) {
+                throw new NotFoundException("Пользователь с id " + ids.get(i) + " не найден");
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Заполнить вложенных друзей, если выбрано поле {@code friends}.
+     *
+     * <p>Шаги:
+     * <ul>
+     * <li> Загружает ID друзей всех пользователей списка пакетами по {@code maxMultiGetSize}.</li>
+     * <li> Если друзей в ответе больше {@code max-embedded}, выбрасывает ValidationException,
+     * не загружая их.</li>
+     * <li> Ставит ID друзей всех пользователей в один {@link BatchLoader}, поэтому каждый друг
+     * загружается один раз, а на всех друзей уходит один пакет запросов, а не запрос на каждого.</li>
+     * <li> Раскладывает друзей по пользователям в порядке возрастания ID только с полями {@code friends.*}.</li>
+     * </ul>
+     *
+     * @param users  DTO пользователей
+     * @param fields выбранные поля DTO
+     * @return те же DTO
+     * @throws ValidationException если вложенных друзей слишком много
+     */
+    private List<UserDto> attachFriends(List<UserDto> users, Set<String> fields) {
+        if (!fields.contains("friends") || users.isEmpty()) {
+            return users;
+        }
+        Set<String> friendFields = new HashSet<>();
+        friendFields.add("id");
+        fields.stream()
+                .filter(field -> field.startsWith(FRIENDS_PREFIX))
+                .forEach(field -> friendFields.add(field.substring(FRIENDS_PREFIX.length())));
+
+        BatchLoader<Integer, User> owners = new BatchLoader<>(ids -> userStorage.getUsers(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity())), maxMultiGetSize);
+        List<User> loaded = owners.loadAll(users.stream().map(UserDto::getId).toList());
+        int embedded = loaded.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(user -> user.getFriends().size())
+                .sum();
+        if (embedded > maxEmbeddedFriends) {
+            throw new ValidationException("В ответе " + embedded + " вложенных друзей, допускается не больше "
+                    + maxEmbeddedFriends + "; уменьшите выборку или не запрашивайте friends");
+        }
+
+        BatchLoader<Integer, UserDto> friends = new BatchLoader<>(ids -> loadUserDtos(ids, friendFields),
+                maxMultiGetSize);
+        List<List<Supplier<UserDto>>> pending = loaded.stream()
+                .map(user -> user == null ? List.<Supplier<UserDto>>of() : user.getFriends().stream()
+                        .sorted()
+                        .map(friends::load)
+                        .toList())
+                .toList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setFriends(pending.get(i).stream()
+                    .map(Supplier::get)
+                    .filter(Objects::nonNull)
+                    .toList());
+        }
+        return users;
+    }
+
+    /**
+     * Загрузить пользователей по набору ID и собрать их DTO: пользователи с ID друзей и email друзей
+     * загружаются двумя запросами независимо от количества ID.
+     *
+     * @param ids    идентификаторы пользователей
+     * @param fields выбранные поля DTO
+     * @return DTO найденных пользователей по ID; несуществующие ID пропускаются
+     */
+    private Map<Integer, UserDto> loadUserDtos(Collection<Integer> ids, Set<String> fields) {
+        List<User> users = userStorage.getUsers(ids);
+        Map<Integer, List<String>> friendsEmails = fields.contains("emailFriends")
+                ? userStorage.getFriendsEmailsByUsers(users.stream().map(User::getId).toList()) : Map.of();
+        return users.stream()
+                .collect(Collectors.toMap(User::getId, user -> userMapper.toDto(user,
+                        friendsEmails.getOrDefault(user.getId(), new ArrayList<>()), fields)));
+    }
+
+    /**
+     * Преобразовать пользователя в DTO с выбранными полями.
+     * Email друзей запрашиваются из хранилища, только если поле {@code emailFriends} выбрано.
+     *
+     * @param user   объект пользователя с ID друзей
+     * @param fields выбранные поля DTO
      * @return DTO пользователя
      */
-    private UserDto getUserDtoOrThrow(Integer id) {
-        User user = userStorage.getUser(id)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id " + id + " не найден"));
-        List<String> friendsEmails = userStorage.getFriendsEmails(id);
-        return userMapper.toDto(user, friendsEmails);
+    private UserDto toDto(User user, Set<String> fields) {
+        List<String> friendsEmails = fields.contains("emailFriends")
+                ? userStorage.getFriendsEmails(user.getId()) : null;
+        return userMapper.toDto(user, friendsEmails, fields);
+    }
+
+    /**
+     * Разобрать список полей из параметра {@code fields}. ID пользователя возвращается всегда.
+     * Поле {@code friends.<поле>} выбирает поле вложенных друзей и само включает {@code friends};
+     * вложенность глубже одного уровня не допускается.
+     *
+     * @param fields запрошенные поля или {@code null}
+     * @return выбранные поля; поля по умолчанию, если список не задан
+     */
+    private static Set<String> resolveFields(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return UserMapper.DEFAULT_FIELDS;
+        }
+        Set<String> selected = new HashSet<>(fields);
+        selected.add("id");
+        for (String field : Set.copyOf(selected)) {
+            String name = field.startsWith(FRIENDS_PREFIX) ? field.substring(FRIENDS_PREFIX.length()) : field;
+            if (!UserMapper.FIELDS.contains(name) || (field.startsWith(FRIENDS_PREFIX) && name.equals("friends"))) {
+                throw new ValidationException("Неизвестное поле " + field + ", допустимые поля: "
+                        + String.join(", ", new TreeSet<>(UserMapper.FIELDS))
+                        + "; поля друзей задаются как friends.<поле>");
+            }
+            if (!name.equals(field)) {
+                selected.add("friends");
+            }
+        }
+        return selected;
     }
 
     /**
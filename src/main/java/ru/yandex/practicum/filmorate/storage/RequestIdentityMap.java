@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Кэш первого уровня для сущностей, загруженных в рамках одного HTTP-запроса (identity map).
+ * <p>
+ * Повторная загрузка фильма или пользователя по ID в том же запросе возвращает тот же экземпляр
+ * без обращения к базе. Кэш хранится в атрибутах текущего запроса и исчезает вместе с ним.
+ * Любая запись в хранилище очищает кэш запроса целиком: лайк меняет фильм, а дружба — пользователя,
+ * поэтому точечная инвалидация не стоит усложнения.
+ * <p>
+ * Вне HTTP-запроса (фоновые задачи, загрузка индексов при старте, параллельные подзадачи
+ * в виртуальных потоках) атрибутов запроса нет, и загрузка всегда идёт в базу.
+ * Отсутствующие сущности не кэшируются.
+ */
+@Component
+public class RequestIdentityMap {
+    private static final String ATTRIBUTE = RequestIdentityMap.class.getName();
+
+    /**
+     * Возвращает сущность из кэша запроса или загружает её и запоминает.
+     *
+     * @param type   класс сущности
+     * @param id     ID сущности
+     * @param loader загрузка сущности из базы
+     * @param <T>    тип сущности
+     * @return сущность или пустой Optional, если её нет
+     */
+    public <T> Optional<T> load(Class<T> type, int id, Supplier<Optional<T>> loader) {
+        Map<Key, Object> entities = currentEntities();
+        if (entities == null) {
+            return loader.get();
+        }
+        Key key = new Key(type, id);
+        Object cached = entities.get(key);
+        if (cached != null) {
+            return Optional.of(type.cast(cached));
+        }
+        Optional<T> loaded = loader.get();
+        loaded.ifPresent(entity -> entities.put(key, entity));
+        return loaded;
+    }
+
+    /**
+     * Очищает кэш текущего запроса. Вызывается хранилищами при каждой записи.
+     */
+    public void clear() {
+        Map<Key, Object> entities = currentEntities();
+        if (entities != null) {
+            entities.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Key, Object> currentEntities() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<Key, Object> entities = (Map<Key, Object>) attributes.getAttribute(ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        if (entities == null) {
+            entities = new HashMap<>();
+            attributes.setAttribute(ATTRIBUTE, entities, RequestAttributes.SCOPE_REQUEST);
+        }
+        return entities;
+    }
+
+    private record Key(Class<?> type, int id) {
+    }
+}
@@ -30,7 +30,8 @@ public class FilmExtractor implements ResultSetExtractor<List<Film>> {
      * Алгоритм работы:
      * - Идём по всем строкам ResultSet;
      * - Для каждого film_id либо создаём новый Film, либо достаём существующий из карты;
-     * - Добавляем жанры и лайки к уже собранному объекту;
+     * - Добавляем жанры и лайки к уже собранному объекту (жанр повторяется в строках
+     *   по числу лайков, поэтому добавляется один раз);
      * - В конце возвращаем список уникальных фильмов.
      *
      * @param rs ResultSet, содержащий строки SQL, где каждая строка может представлять один фильм
@@ -62,7 +63,7 @@ public class FilmExtractor implements ResultSetExtractor<List<Film>> {
             });
             Integer genreId = rs.getObject("genre_id", Integer.class);
             Integer likeId = rs.getObject("like_id", Integer.class);
-            if (genreId != null) {
+            if (genreId != null && !film.getGenres().contains(Genre.getGenreById(genreId))) {
                 film.getGenres().add(Genre.getGenreById(genreId));
             }
             if (likeId != null) {
@@ -1,19 +1,38 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.RequestIdentityMap;
+import ru.yandex.practicum.filmorate.storage.index.FilmCoLikeIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmHeavyHitters;
+import ru.yandex.practicum.filmorate.storage.index.FilmTrendingCounters;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Хранилище фильмов, работающее с реляционной базой данных через {@link JdbcTemplate}.
@@ -24,6 +43,13 @@ import java.util.Set;
  * (основные данные фильма, жанры, лайки).
  * <p>
  * Методы возвращают полностью собранные объекты Film с жанрами, лайками и MPA-рейтингов.
+ * <p>
+ * Хранилище также заполняет при старте {@link FilmCoLikeIndex} и {@link FilmTrendingCounters}
+ * и обновляет счётчики недавних лайков при добавлении и удалении лайков.
+ * <p>
+ * Лайк и его снятие выполняются одним запросом каждый: повторный лайк не создаёт дубликат
+ * благодаря уникальному ограничению на (user_id, film_id), а отсутствие фильма или пользователя
+ * проявляется нарушением внешнего ключа.
  */
 @Repository("filmDbStorage")
 @RequiredArgsConstructor
@@ -47,6 +73,10 @@ public class FilmDbStorage implements FilmStorage {
             LEFT JOIN genres AS g ON fg.genre_id = g.id
             LEFT JOIN film_likes AS fl ON f.id = fl.film_id
             """;
+    /**
+     * SQL-запрос для загрузки фильмов из списка ID вместе с жанрами и лайками; список подставляется в %s.
+     */
+    private static final String GET_FILMS_BY_IDS = GET_ALL_FILMS_WITH_GENRES_AND_MPA + "WHERE f.id IN (%s)";
     /**
      * SQL-запрос для добавления нового фильма.
      */
@@ -85,6 +115,30 @@ public class FilmDbStorage implements FilmStorage {
             JOIN film_likes AS fl ON u.id = fl.user_id
             WHERE fl.film_id = ?
             """;
+    /**
+     * SQL — получить имена пользователей, поставивших лайк фильмам из списка; список подставляется в %s.
+     */
+    private static final String GET_USERS_NAMES_LIKED_FILMS = """
+            SELECT fl.film_id, u.name
+            FROM users AS u
+            JOIN film_likes AS fl ON u.id = fl.user_id
+            WHERE fl.film_id IN (%s)
+            """;
+    /**
+     * SQL — получить страницу ID пользователей, поставивших лайк фильму, с ID больше заданного.
+     * Использует индекс film_likes (film_id, user_id).
+     */
+    private static final String GET_FILM_LIKER_IDS_PAGE = """
+            SELECT user_id
+            FROM film_likes
+            WHERE film_id = ? AND user_id > ?
+            ORDER BY user_id
+            LIMIT ?
+            """;
+    /**
+     * SQL — получить страницу ID фильмов после указанного ID.
+     */
+    private static final String GET_FILM_IDS_PAGE = "SELECT id FROM films WHERE id > ? ORDER BY id LIMIT ?";
     /**
      * SQL — получить названия жанров фильма.
      */
@@ -105,20 +159,49 @@ public class FilmDbStorage implements FilmStorage {
             """;
 
     /**
-     * SQL — добавить лайк фильму.
+     * SQL — добавить лайк фильму, если его ещё нет.
      */
     private static final String INSERT_FILM_LIKE = """
-            INSERT INTO film_likes (user_id, film_id)
-            VALUES (?, ?)
+            INSERT INTO film_likes (user_id, film_id, created_at)
+            SELECT ?, ?, ?
+            WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE user_id = ? AND film_id = ?)
             """;
     /**
-     * SQL — удалить лайк фильма.
+     * SQL — удалить лайк фильма и вернуть время удалённых лайков.
      */
     private static final String DELETE_FILM_LIKE = """
+            SELECT created_at FROM OLD TABLE (
             DELETE FROM film_likes
             WHERE
             user_id = ? AND film_id = ?
+            )
             """;
+    /**
+     * SQL — удалить лайк фильма (batch-операция).
+     */
+    private static final String DELETE_FILM_LIKE_BY_PAIR = "DELETE FROM film_likes WHERE user_id = ? AND film_id = ?";
+    /**
+     * SQL — получить фильм и время лайков для списка пар (пользователь, фильм); список подставляется в %s.
+     */
+    private static final String GET_LIKE_TIMES_BY_PAIRS =
+            "SELECT film_id, created_at FROM film_likes WHERE (user_id, film_id) IN (%s)";
+    /**
+     * SQL — получить существующие ID фильмов из списка; список подставляется в %s.
+     */
+    private static final String GET_EXISTING_FILM_IDS = "SELECT id FROM films WHERE id IN (%s)";
+    /**
+     * Сколько раз пакет лайков применяется заново при гонке с одиночными лайками.
+     */
+    private static final int BATCH_ATTEMPTS = 3;
+    /**
+     * SQL — получить все пары пользователь-фильм из таблицы лайков.
+     */
+    private static final String GET_ALL_LIKES = "SELECT user_id, film_id FROM film_likes";
+    /**
+     * SQL — получить фильм и время каждого лайка, поставленного не раньше указанного момента.
+     * Лайки без времени, поставленные до появления колонки created_at, в выборку не попадают.
+     */
+    private static final String GET_RECENT_LIKES = "SELECT film_id, created_at FROM film_likes WHERE created_at >= ?";
     /**
      * SQL — добавить жанры фильму (batch-операция).
      */
@@ -127,10 +210,32 @@ public class FilmDbStorage implements FilmStorage {
      * SQL — удалить все жанры, связанные с фильмом.
      */
     private static final String DELETE_GENRES_FOR_FILM = "DELETE from film_genre WHERE film_id = ?";
-
     private final JdbcTemplate jdbc;
     private final RowMapper<Film> mapper;
     private final ResultSetExtractor<List<Film>> filmExtractor;
+    private final FilmCoLikeIndex coLikeIndex;
+    private final FilmTrendingCounters trendingCounters;
+    private final FilmHeavyHitters heavyHitters;
+    private final TransactionTemplate transactionTemplate;
+    private final RequestIdentityMap identityMap;
+
+    /**
+     * Перестраивает индекс совместных лайков и загружает счётчики недавних лайков при старте приложения.
+     * Приближённый топ заполняется теми же лайками за период хранения, а не всеми лайками фильмов,
+     * чтобы после перезапуска он отражал недавнюю активность.
+     */
+    @PostConstruct
+    public void rebuildLikeIndexes() {
+        coLikeIndex.rebuild(getLikedFilmsByUsers());
+        trendingCounters.clear();
+        Map<Integer, Long> recentLikes = new HashMap<>();
+        jdbc.query(GET_RECENT_LIKES, rs -> {
+            int filmId = rs.getInt("film_id");
+            trendingCounters.onLikeAdded(filmId, rs.getTimestamp("created_at").toInstant());
+            recentLikes.merge(filmId, 1L, Long::sum);
+        }, Timestamp.from(trendingCounters.getRetentionStart()));
+        heavyHitters.rebuild(recentLikes);
+    }
 
     /**
      * Возвращает список всех фильмов с жанрами, лайками и рейтингами.
@@ -154,6 +259,7 @@ public class FilmDbStorage implements FilmStorage {
      */
     @Override
     public Film addFilm(Film film) {
+        identityMap.clear();
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
         jdbc.update(con -> {
             PreparedStatement ps = con.prepareStatement(INSERT_FILM_QUERY, Statement.RETURN_GENERATED_KEYS);
@@ -185,6 +291,7 @@ public class FilmDbStorage implements FilmStorage {
     public Film updateFilm(Film film) {
         Object[] params = {film.getName(), film.getDescription(), film.getDuration(), film.getReleaseDate(),
                 film.getMpa().getId(), film.getId()};
+        identityMap.clear();
         int rowsUpdated = jdbc.update(UPDATE_FILM_QUERY, params);
         if (rowsUpdated == 0) {
             throw new InternalServerException("Ошибка при обновлении фильма");
@@ -200,12 +307,28 @@ public class FilmDbStorage implements FilmStorage {
      */
     @Override
     public Optional<Film> getFilm(int filmId) {
-        List<Film> films = jdbc.query(GET_FILM_BY_ID_QUERY, filmExtractor, filmId);
-        if (films == null || films.isEmpty()) {
-            return Optional.empty();
-        } else {
-            return Optional.ofNullable(films.get(0));
+        return identityMap.load(Film.class, filmId, () -> {
+            List<Film> films = jdbc.query(GET_FILM_BY_ID_QUERY, filmExtractor, filmId);
+            if (films == null || films.isEmpty()) {
+                return Optional.empty();
+            } else {
+                return Optional.ofNullable(films.get(0));
+            }
+        });
+    }
+
+    /**
+     * Загружает фильмы из списка ID вместе с жанрами и лайками одним запросом.
+     *
+     * @param ids идентификаторы фильмов
+     * @return найденные фильмы в произвольном порядке; отсутствующие ID пропускаются
+     */
+    @Override
+    public List<Film> getFilms(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        return jdbc.query(GET_FILMS_BY_IDS.formatted(placeholders(ids.size())), filmExtractor, ids.toArray());
     }
 
     /**
@@ -216,6 +339,7 @@ public class FilmDbStorage implements FilmStorage {
      * @param genresId множество ID жанров (может быть пустым)
      */
     public void addGenresForFilm(int filmId, Set<Integer> genresId) {
+        identityMap.clear();
         jdbc.batchUpdate(INSERT_GENRES_FOR_FILM, genresId, genresId.size(),
                 (ps, genreId) -> {
                     ps.setInt(1, filmId);
@@ -235,6 +359,53 @@ public class FilmDbStorage implements FilmStorage {
                 (rs, rowNum) -> rs.getString("name"), filmId);
     }
 
+    /**
+     * Возвращает имена пользователей, поставивших лайк каждому фильму из списка, одним запросом.
+     *
+     * @param filmIds идентификаторы фильмов
+     * @return отображение ID фильма на имена пользователей; фильмы без лайков в нём отсутствуют
+     */
+    @Override
+    public Map<Integer, List<String>> getUsersNamesLikedFilms(Collection<Integer> filmIds) {
+        if (filmIds.isEmpty()) {
+            return Map.of();
+        }
+        return jdbc.query(GET_USERS_NAMES_LIKED_FILMS.formatted(placeholders(filmIds.size())), rs -> {
+            Map<Integer, List<String>> names = new HashMap<>();
+            while (rs.next()) {
+                names.computeIfAbsent(rs.getInt("film_id"), k -> new ArrayList<>()).add(rs.getString("name"));
+            }
+            return names;
+        }, filmIds.toArray());
+    }
+
+    /**
+     * Возвращает страницу ID пользователей, поставивших лайк фильму, в порядке возрастания ID.
+     * Страница выбирается по ключу, поэтому стоимость запроса не зависит от её номера.
+     *
+     * @param filmId      ID фильма
+     * @param afterUserId ID последнего пользователя предыдущей страницы (0 для первой страницы)
+     * @param limit       максимальный размер страницы
+     * @return ID пользователей
+     */
+    @Override
+    public List<Integer> getFilmLikerIds(int filmId, int afterUserId, int limit) {
+        return jdbc.queryForList(GET_FILM_LIKER_IDS_PAGE, Integer.class, filmId, afterUserId, limit);
+    }
+
+    /**
+     * Возвращает страницу ID фильмов в порядке возрастания.
+     * Страница выбирается по первичному ключу, без OFFSET.
+     *
+     * @param afterId ID последнего фильма предыдущей страницы (0 для первой страницы)
+     * @param limit   максимальный размер страницы
+     * @return ID фильмов
+     */
+    @Override
+    public List<Integer> getFilmIds(int afterId, int limit) {
+        return jdbc.queryForList(GET_FILM_IDS_PAGE, Integer.class, afterId, limit);
+    }
+
     /**
      * Получает список названий жанров фильма.
      *
@@ -284,24 +455,173 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     /**
-     * Добавляет лайк фильму.
+     * Добавляет лайк фильму с текущим временем, если пользователь ещё не ставил его,
+     * и учитывает его в счётчиках недавних лайков.
+     * Повторный лайк, в том числе одновременный, ничего не меняет.
      *
      * @param filmId ID фильма
      * @param userId ID пользователя, который ставит лайк
+     * @return {@code true}, если лайк добавлен, и {@code false}, если он уже был
+     * @throws org.springframework.dao.DataIntegrityViolationException если фильма или пользователя не существует
      */
     @Override
-    public void addLike(int filmId, int userId) {
-        int rowsUpdated = jdbc.update(INSERT_FILM_LIKE, userId, filmId);
+    public boolean addLike(int filmId, int userId) {
+        identityMap.clear();
+        Instant likedAt = Instant.now();
+        int rowsInserted;
+        try {
+            rowsInserted = jdbc.update(INSERT_FILM_LIKE, userId, filmId, Timestamp.from(likedAt), userId, filmId);
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+        if (rowsInserted == 0) {
+            return false;
+        }
+        trendingCounters.onLikeAdded(filmId, likedAt);
+        return true;
     }
 
     /**
-     * Удаляет лайк фильма.
+     * Удаляет лайк фильма и учитывает это в счётчиках недавних лайков.
+     * Время удалённого лайка возвращается тем же запросом, что и удаляет его.
      *
      * @param filmId ID фильма
      * @param userId ID пользователя, который удаляет лайк
+     * @return {@code true}, если лайк был и удалён
+     */
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        identityMap.clear();
+        List<Timestamp> deleted = jdbc.queryForList(DELETE_FILM_LIKE, Timestamp.class, userId, filmId);
+        if (deleted.isEmpty()) {
+            return false;
+        }
+        deleted.stream()
+                .filter(Objects::nonNull)
+                .forEach(likedAt -> trendingCounters.onLikeRemoved(filmId, likedAt.toInstant()));
+        return true;
+    }
+
+    /**
+     * Применяет пакет операций над лайками в одной транзакции.
+     * Подряд идущие операции одного типа выполняются одним batch-запросом, порядок операций сохраняется.
+     * Перед снятием лайков одним запросом читается время снимаемых лайков для счётчиков недавних лайков.
+     * Счётчики обновляются только после фиксации транзакции. Если одновременный одиночный лайк
+     * нарушил уникальность пары, транзакция откатывается и пакет применяется заново.
+     *
+     * @param operations операции над лайками существующих фильмов и пользователей
+     * @return для каждой операции — {@code true}, если она изменила данные
+     */
+    @Override
+    public boolean[] applyLikeOperations(List<LikeOperation> operations) {
+        Timestamp likedAt = Timestamp.from(Instant.now());
+        identityMap.clear();
+        boolean[] changed = new boolean[operations.size()];
+        List<Object[]> removedLikes = new ArrayList<>();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        executeLikeOperations(operations, likedAt, changed, removedLikes));
+                break;
+            } catch (DuplicateKeyException e) {
+                if (attempt == BATCH_ATTEMPTS) {
+                    throw e;
+                }
+                Arrays.fill(changed, false);
+                removedLikes.clear();
+            }
+        }
+        for (int i = 0; i < operations.size(); i++) {
+            LikeOperation op = operations.get(i);
+            if (changed[i] && op.like()) {
+                trendingCounters.onLikeAdded(op.filmId(), likedAt.toInstant());
+            }
+        }
+        removedLikes.stream()
+                .filter(row -> row[1] != null)
+                .forEach(row -> trendingCounters.onLikeRemoved((Integer) row[0], ((Timestamp) row[1]).toInstant()));
+        return changed;
+    }
+
+    /**
+     * Выполняет операции над лайками внутри уже открытой транзакции.
+     */
+    private void executeLikeOperations(List<LikeOperation> operations, Timestamp likedAt, boolean[] changed,
+                                       List<Object[]> removedLikes) {
+        int start = 0;
+        while (start < operations.size()) {
+            boolean like = operations.get(start).like();
+            int end = start;
+            while (end < operations.size() && operations.get(end).like() == like) {
+                end++;
+            }
+            List<LikeOperation> run = operations.subList(start, end);
+            int[] counts;
+            if (like) {
+                counts = jdbc.batchUpdate(INSERT_FILM_LIKE, run.stream()
+                        .map(op -> new Object[]{op.userId(), op.filmId(), likedAt, op.userId(), op.filmId()})
+                        .toList());
+            } else {
+                removedLikes.addAll(getLikeTimes(run));
+                counts = jdbc.batchUpdate(DELETE_FILM_LIKE_BY_PAIR, run.stream()
+                        .map(op -> new Object[]{op.userId(), op.filmId()})
+                        .toList());
+            }
+            for (int i = 0; i < counts.length; i++) {
+                changed[start + i] = counts[i] > 0;
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Возвращает те ID из списка, для которых существует фильм, одним запросом.
+     *
+     * @param ids идентификаторы фильмов
+     * @return множество существующих ID
+     */
+    @Override
+    public Set<Integer> getExistingFilmIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbc.queryForList(GET_EXISTING_FILM_IDS.formatted(placeholders(ids.size())),
+                Integer.class, ids.toArray()));
+    }
+
+    /**
+     * Читает время существующих лайков для списка пар (пользователь, фильм) одним запросом.
+     *
+     * @param operations операции, задающие пары
+     * @return строки вида {ID фильма, время лайка}
+     */
+    private List<Object[]> getLikeTimes(List<LikeOperation> operations) {
+        String pairs = String.join(", ", Collections.nCopies(operations.size(), "(?, ?)"));
+        Object[] params = operations.stream()
+                .flatMap(op -> Stream.of(op.userId(), op.filmId()))
+                .toArray();
+        return jdbc.query(GET_LIKE_TIMES_BY_PAIRS.formatted(pairs),
+                (rs, rowNum) -> new Object[]{rs.getInt("film_id"), rs.getTimestamp("created_at")}, params);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Возвращает все лайки, сгруппированные по пользователям.
+     * Используется для построения in-memory индексов лайков при старте приложения.
+     *
+     * @return отображение ID пользователя на множество ID фильмов, которым он поставил лайк
      */
     @Override
-    public void removeLike(int filmId, int userId) {
-        int rowsDeleted = jdbc.update(DELETE_FILM_LIKE, userId, filmId);
+    public Map<Integer, Set<Integer>> getLikedFilmsByUsers() {
+        return jdbc.query(GET_ALL_LIKES, rs -> {
+            Map<Integer, Set<Integer>> likes = new HashMap<>();
+            while (rs.next()) {
+                likes.computeIfAbsent(rs.getInt("user_id"), k -> new HashSet<>()).add(rs.getInt("film_id"));
+            }
+            return likes;
+        });
     }
-}
\ No newline at end of file
+}
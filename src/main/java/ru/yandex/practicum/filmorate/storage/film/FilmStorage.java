@@ -1,8 +1,11 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -18,6 +21,8 @@ public interface FilmStorage {
 
     boolean isFilmPresent(Integer id);
 
+    List<Film> getFilms(Collection<Integer> ids);
+
     public void addGenresForFilm(int filmId, Set<Integer> genresId);
 
     public List<String> getFilmGenre(int filmId);
@@ -26,9 +31,21 @@ public interface FilmStorage {
 
     public List<String> getUsersNamesLikedFilm(int filmId);
 
+    public Map<Integer, List<String>> getUsersNamesLikedFilms(Collection<Integer> filmIds);
+
+    public List<Integer> getFilmLikerIds(int filmId, int afterUserId, int limit);
+
+    public List<Integer> getFilmIds(int afterId, int limit);
+
     public void updateFilmGenre(int filmId, Set<Integer> genresId);
 
-    public void addLike(int filmId, int userId);
+    public boolean addLike(int filmId, int userId);
+
+    public boolean removeLike(int filmId, int userId);
+
+    public Map<Integer, Set<Integer>> getLikedFilmsByUsers();
+
+    public boolean[] applyLikeOperations(List<LikeOperation> operations);
 
-    public void removeLike(int filmId, int userId);
+    public Set<Integer> getExistingFilmIds(Collection<Integer> ids);
 }
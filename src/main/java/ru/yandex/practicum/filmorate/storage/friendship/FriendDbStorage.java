@@ -1,22 +1,31 @@
 package ru.yandex.practicum.filmorate.storage.friendship;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.storage.RequestIdentityMap;
 
 /**
  * Реализация интерфейса FriendshipStorage для работы с таблицей friendship в базе данных.
  * Поддерживает добавление, удаление и проверку дружбы между пользователями.
+ * <p>
+ * Пара (user_id, friend_id) — составной первичный ключ таблицы, поэтому добавление и удаление
+ * выполняются одним условным запросом каждое и не создают дубликатов при одновременных вызовах.
+ * Отсутствие пользователя проявляется нарушением внешнего ключа.
  */
 @Repository
 @RequiredArgsConstructor
 public class FriendDbStorage implements FriendshipStorage {
 
     /**
-     * SQL-запрос для добавления записи о дружбе
+     * SQL-запрос для добавления записи о дружбе, если её ещё нет
      */
-    private static final String ADD_FRIEND =
-            "INSERT into friendship (user_id, friend_id) VALUES (?, ?)";
+    private static final String ADD_FRIEND = """
+            INSERT INTO friendship (user_id, friend_id)
+            SELECT ?, ?
+            WHERE NOT EXISTS (SELECT 1 FROM friendship WHERE user_id = ? AND friend_id = ?)
+            """;
     /**
      * SQL-запрос для удаления записи о дружбе
      */
@@ -28,16 +37,24 @@ public class FriendDbStorage implements FriendshipStorage {
     private static final String SELECT_PAIR_COUNT =
             "SELECT COUNT(*) FROM friendship WHERE user_id = ? AND friend_id = ?";
     private final JdbcTemplate jdbc;
+    private final RequestIdentityMap identityMap;
 
     /**
-     * Добавляет дружбу между двумя пользователями.
+     * Добавляет дружбу между двумя пользователями, если её ещё нет.
      *
      * @param userId   идентификатор пользователя
      * @param friendId идентификатор друга
+     * @return true, если запись добавлена; false — если пользователи уже дружат
+     * @throws org.springframework.dao.DataIntegrityViolationException если одного из пользователей не существует
      */
     @Override
-    public void addFriend(int userId, int friendId) {
-        jdbc.update(ADD_FRIEND, userId, friendId);
+    public boolean addFriend(int userId, int friendId) {
+        identityMap.clear();
+        try {
+            return jdbc.update(ADD_FRIEND, userId, friendId, userId, friendId) > 0;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
     }
 
     /**
@@ -45,10 +62,12 @@ public class FriendDbStorage implements FriendshipStorage {
      *
      * @param userId   идентификатор пользователя
      * @param friendId идентификатор друга
+     * @return true, если запись о дружбе была и удалена
      */
     @Override
-    public void removeFriend(int userId, int friendId) {
-        jdbc.update(REMOVE_FRIEND, userId, friendId);
+    public boolean removeFriend(int userId, int friendId) {
+        identityMap.clear();
+        return jdbc.update(REMOVE_FRIEND, userId, friendId) > 0;
     }
 
     /**
@@ -2,9 +2,9 @@ package ru.yandex.practicum.filmorate.storage.friendship;
 
 public interface FriendshipStorage {
 
-    void addFriend(int userId, int friendId);
+    boolean addFriend(int userId, int friendId);
 
-    void removeFriend(int userId, int friendId);
+    boolean removeFriend(int userId, int friendId);
 
     boolean areFriends(int userId, int friendId);
 }
@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс совместных лайков «кто лайкнул этот фильм, лайкнул и эти».
+ * <p>
+ * Для каждого фильма хранит разреженную карту соседей: ID другого фильма → количество пользователей,
+ * лайкнувших оба фильма. Чтобы ограничить память, у каждого фильма остаются только самые
+ * частые соседи: не больше {@code 2 * topK} записей, при переполнении вытесняется сосед
+ * с минимальным счётчиком. Запас в два раза нужен, чтобы инкрементальные обновления
+ * успевали «поднять» соседа в топ до его вытеснения.
+ * <p>
+ * Вытеснение — компромисс между памятью и точностью: счётчик вытесненной пары теряется,
+ * и если пару снова лайкнут вместе, её счёт начнётся с 1. Поэтому после долгой смены лайков
+ * счётчики пар, побывавших за пределами {@code 2 * topK}, занижены до следующей перестройки
+ * при старте. Снятие лайка пары, которой нет в индексе, ничего не меняет и не создаёт записей.
+ * <p>
+ * При старте {@code FilmDbStorage} полностью перестраивает индекс по лайкам из базы,
+ * а при каждом добавлении или удалении лайка его инкрементально обновляет {@code FilmService}.
+ */
+@Slf4j
+@Component
+public class FilmCoLikeIndex {
+
+    private final int topK;
+    private final int capacity;
+    private final Map<Integer, Map<Integer, Integer>> neighbours = new ConcurrentHashMap<>();
+
+    public FilmCoLikeIndex(@Value("${filmorate.similar-films.top-k:50}") int topK) {
+        this.topK = topK;
+        this.capacity = topK * 2;
+    }
+
+    /**
+     * Полностью перестраивает индекс по лайкам пользователей.
+     * Счётчики каждого фильма считаются независимо, поэтому фильмы обрабатываются параллельно,
+     * а в индекс сразу попадают уже усечённые до {@code topK} карты соседей.
+     *
+     * @param filmsByUser отображение ID пользователя на множество понравившихся ему фильмов
+     */
+    public void rebuild(Map<Integer, Set<Integer>> filmsByUser) {
+        Map<Integer, List<Integer>> usersByFilm = new HashMap<>();
+        filmsByUser.forEach((userId, filmIds) -> filmIds.forEach(filmId ->
+                usersByFilm.computeIfAbsent(filmId, k -> new ArrayList<>()).add(userId)));
+
+        neighbours.clear();
+        usersByFilm.entrySet().parallelStream().forEach(entry -> {
+            Integer filmId = entry.getKey();
+            Map<Integer, Integer> counts = new HashMap<>();
+            for (Integer userId : entry.getValue()) {
+                for (Integer otherId : filmsByUser.get(userId)) {
+                    if (!otherId.equals(filmId)) {
+                        counts.merge(otherId, 1, Integer::sum);
+                    }
+                }
+            }
+            Map<Integer, Integer> top = new HashMap<>();
+            counts.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed())
+                    .limit(topK)
+                    .forEach(e -> top.put(e.getKey(), e.getValue()));
+            if (!top.isEmpty()) {
+                neighbours.put(filmId, top);
+            }
+        });
+        log.info("Индекс совместных лайков построен для {} фильмов", neighbours.size());
+    }
+
+    /**
+     * Учитывает новый лайк: увеличивает счётчики пары фильм — каждый другой фильм пользователя.
+     *
+     * @param filmId       фильм, которому поставлен лайк
+     * @param otherFilmIds другие фильмы, которые уже лайкнул этот пользователь
+     */
+    public void onLikeAdded(int filmId, Collection<Integer> otherFilmIds) {
+        for (Integer otherId : otherFilmIds) {
+            if (otherId != filmId) {
+                change(filmId, otherId, 1);
+                change(otherId, filmId, 1);
+            }
+        }
+    }
+
+    /**
+     * Учитывает удалённый лайк: уменьшает счётчики пары фильм — каждый другой фильм пользователя.
+     *
+     * @param filmId       фильм, с которого снят лайк
+     * @param otherFilmIds другие фильмы, которые лайкнул этот пользователь
+     */
+    public void onLikeRemoved(int filmId, Collection<Integer> otherFilmIds) {
+        for (Integer otherId : otherFilmIds) {
+            if (otherId != filmId) {
+                change(filmId, otherId, -1);
+                change(otherId, filmId, -1);
+            }
+        }
+    }
+
+    /**
+     * Возвращает фильмы, которые чаще всего лайкают вместе с указанным.
+     *
+     * @param filmId идентификатор фильма
+     * @param limit  максимальное количество фильмов (не больше topK)
+     * @return ID фильмов по убыванию количества совместных лайков
+     */
+    public List<Integer> getSimilarFilms(int filmId, int limit) {
+        Map<Integer, Integer> counts = neighbours.get(filmId);
+        if (counts == null) {
+            return List.of();
+        }
+        Map<Integer, Integer> snapshot;
+        synchronized (counts) {
+            snapshot = new HashMap<>(counts);
+        }
+        return snapshot.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(Math.min(limit, topK))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private void change(int filmId, int otherId, int delta) {
+        Map<Integer, Integer> counts = delta > 0
+                ? neighbours.computeIfAbsent(filmId, k -> new HashMap<>())
+                : neighbours.get(filmId);
+        if (counts == null) {
+            return;
+        }
+        synchronized (counts) {
+            Integer updated = delta > 0
+                    ? counts.merge(otherId, delta, Integer::sum)
+                    : counts.computeIfPresent(otherId, (k, count) -> count + delta);
+            if (updated != null && updated <= 0) {
+                counts.remove(otherId);
+            }
+            if (counts.size() > capacity) {
+                counts.entrySet().stream()
+                        .min(Comparator.comparingInt(Map.Entry::getValue))
+                        .map(Map.Entry::getKey)
+                        .ifPresent(counts::remove);
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Колоночный in-memory снимок таблицы films для многокритериального поиска.
+ * <p>
+ * Каждый атрибут фильма хранится в отдельном примитивном массиве, строка {@code i}
+ * во всех массивах относится к одному фильму:
+ * <ul>
+ * <li> {@code ids} — ID фильма;</li>
+ * <li> {@code durations} — продолжительность в минутах;</li>
+ * <li> {@code releaseDays} — дата выхода в днях от эпохи ({@code LocalDate.toEpochDay()});</li>
+ * <li> {@code mpaOrdinals} — порядковый номер рейтинга {@code Mpa};</li>
+ * <li> {@code genreMasks} — битовая маска жанров, бит {@code Genre.ordinal()} установлен для каждого жанра;</li>
+ * <li> {@code likes} — количество лайков.</li>
+ * </ul>
+ * Фильтрация выполняется одним проходом по массивам без ветвлений и без создания объектов на строку,
+ * что позволяет JIT векторизовать цикл. Сортировка упаковывает ключ и ID фильма в {@code long}
+ * и сортирует примитивный массив, поэтому фильмы с равным ключом идут по возрастанию ID
+ * в обоих направлениях сортировки.
+ * <p>
+ * Снимок загружается при старте из {@link FilmIndexLoader} и обновляется из {@code FilmService}
+ * при добавлении и изменении фильмов и при изменении количества лайков.
+ */
+@Slf4j
+@Component
+public class FilmColumnStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] durations = new int[INITIAL_CAPACITY];
+    private int[] releaseDays = new int[INITIAL_CAPACITY];
+    private byte[] mpaOrdinals = new byte[INITIAL_CAPACITY];
+    private int[] genreMasks = new int[INITIAL_CAPACITY];
+    private int[] likes = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private final Map<Integer, Integer> rowsById = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Заменяет содержимое снимка всеми фильмами каталога.
+     *
+     * @param films все фильмы из хранилища с лайками
+     */
+    public void rebuild(Collection<Film> films) {
+        lock.writeLock().lock();
+        try {
+            rowsById.clear();
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Film film : films) {
+            upsert(film);
+            setLikes(film.getId(), film.getLikes().size());
+        }
+        log.info("Колоночный снимок фильмов построен: {} строк", size);
+    }
+
+    /**
+     * Добавляет фильм в снимок или обновляет его атрибуты, сохраняя текущее количество лайков.
+     *
+     * @param film фильм с заполненными ID, продолжительностью, датой выхода, рейтингом и жанрами
+     */
+    public void upsert(Film film) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowsById.get(film.getId());
+            if (row == null) {
+                ensureCapacity(size + 1);
+                row = size++;
+                rowsById.put(film.getId(), row);
+                ids[row] = film.getId();
+                likes[row] = 0;
+            }
+            durations[row] = film.getDuration();
+            releaseDays[row] = (int) film.getReleaseDate().toEpochDay();
+            mpaOrdinals[row] = (byte) film.getMpa().ordinal();
+            genreMasks[row] = genreMask(film.getGenres());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Устанавливает количество лайков фильма.
+     *
+     * @param filmId     ID фильма
+     * @param likesCount актуальное количество лайков
+     */
+    public void setLikes(int filmId, int likesCount) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowsById.get(filmId);
+            if (row != null) {
+                likes[row] = likesCount;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Выполняет поиск по снимку.
+     *
+     * @param query условия фильтрации, сортировки и ограничение количества
+     * @return ID найденных фильмов в порядке сортировки
+     */
+    public int[] search(Query query) {
+        lock.readLock().lock();
+        try {
+            int n = size;
+            int[] selected = new int[n];
+            int found = 0;
+            int requiredGenres = query.genreMask();
+            int allowedMpa = query.mpaMask();
+            for (int i = 0; i < n; i++) {
+                boolean match = durations[i] >= query.minDuration() & durations[i] <= query.maxDuration()
+                        & releaseDays[i] >= query.minReleaseDay() & releaseDays[i] <= query.maxReleaseDay()
+                        & likes[i] >= query.minLikes() & likes[i] <= query.maxLikes()
+                        & (genreMasks[i] & requiredGenres) == requiredGenres
+                        & ((1 << mpaOrdinals[i]) & allowedMpa) != 0;
+                selected[found] = i;
+                found += match ? 1 : 0;
+            }
+            return sortAndLimit(selected, found, query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Строит битовую маску жанров.
+     *
+     * @param genres жанры
+     * @return маска, в которой установлен бит {@code ordinal()} каждого жанра
+     */
+    public static int genreMask(Iterable<Genre> genres) {
+        int mask = 0;
+        for (Genre genre : genres) {
+            mask |= 1 << genre.ordinal();
+        }
+        return mask;
+    }
+
+    private int[] sortAndLimit(int[] selected, int found, Query query) {
+        int limit = Math.min(found, query.limit());
+        int[] column = switch (query.sortBy()) {
+            case ID -> ids;
+            case DURATION -> durations;
+            case RELEASE_DATE -> releaseDays;
+            case LIKES -> likes;
+        };
+        long[] keys = new long[found];
+        for (int i = 0; i < found; i++) {
+            int row = selected[i];
+            // ~value меняет порядок на обратный без переполнения, а ID в младших битах остаётся по возрастанию
+            int value = query.descending() ? ~column[row] : column[row];
+            keys[i] = ((long) value << 32) | (ids[row] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(keys);
+        int[] result = new int[limit];
+        for (int i = 0; i < limit; i++) {
+            result[i] = (int) keys[i];
+        }
+        return result;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        durations = Arrays.copyOf(durations, newCapacity);
+        releaseDays = Arrays.copyOf(releaseDays, newCapacity);
+        mpaOrdinals = Arrays.copyOf(mpaOrdinals, newCapacity);
+        genreMasks = Arrays.copyOf(genreMasks, newCapacity);
+        likes = Arrays.copyOf(likes, newCapacity);
+    }
+
+    /**
+     * Колонка, по которой сортируется результат поиска.
+     */
+    public enum Column {
+        ID,
+        DURATION,
+        RELEASE_DATE,
+        LIKES
+    }
+
+    /**
+     * Условия поиска. Границы диапазонов включительные; неограниченный диапазон задаётся
+     * значениями {@link Integer#MIN_VALUE}/{@link Integer#MAX_VALUE}. Даты до 1970 года
+     * задаются отрицательными днями от эпохи.
+     *
+     * @param genreMask     маска жанров, которые должны быть у фильма одновременно (0 — без ограничения)
+     * @param mpaMask       маска допустимых рейтингов по {@code Mpa.ordinal()} (-1 — любой рейтинг)
+     * @param minDuration   минимальная продолжительность
+     * @param maxDuration   максимальная продолжительность
+     * @param minReleaseDay минимальная дата выхода в днях от эпохи
+     * @param maxReleaseDay максимальная дата выхода в днях от эпохи
+     * @param minLikes      минимальное количество лайков
+     * @param maxLikes      максимальное количество лайков
+     * @param sortBy        колонка сортировки
+     * @param descending    сортировать по убыванию
+     * @param limit         максимальное количество результатов
+     */
+    public record Query(int genreMask, int mpaMask,
+                        int minDuration, int maxDuration,
+                        int minReleaseDay, int maxReleaseDay,
+                        int minLikes, int maxLikes,
+                        Column sortBy, boolean descending, int limit) {
+    }
+}
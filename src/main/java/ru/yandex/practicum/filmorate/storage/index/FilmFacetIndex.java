@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory индекс фасетов фильмов для фильтрации по жанру, рейтингу MPA и году выхода.
+ * <p>
+ * Для каждого значения фасета хранится {@link BitSet} по идентификаторам фильмов:
+ * бит {@code id} установлен, если фильм с этим ID имеет данный жанр, рейтинг или год выхода.
+ * Жанров и рейтингов всего несколько, поэтому наборов битов немного, а фильтрация
+ * сводится к пересечению нескольких BitSet без обхода всех фильмов.
+ * <p>
+ * Индекс загружается при старте из {@link FilmIndexLoader} и обновляется из {@code FilmService}
+ * при добавлении и изменении фильма.
+ */
+@Slf4j
+@Component
+public class FilmFacetIndex {
+
+    private final Map<Genre, BitSet> byGenre = new EnumMap<>(Genre.class);
+    private final Map<Mpa, BitSet> byMpa = new EnumMap<>(Mpa.class);
+    private final Map<Integer, BitSet> byYear = new HashMap<>();
+    private final Map<Integer, Facets> indexed = new HashMap<>();
+    private final BitSet allFilms = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public FilmFacetIndex() {
+        for (Genre genre : Genre.values()) {
+            byGenre.put(genre, new BitSet());
+        }
+        for (Mpa mpa : Mpa.values()) {
+            byMpa.put(mpa, new BitSet());
+        }
+    }
+
+    /**
+     * Заменяет содержимое индекса всеми фильмами каталога.
+     *
+     * @param films все фильмы из хранилища
+     */
+    public void rebuild(Collection<Film> films) {
+        lock.writeLock().lock();
+        try {
+            byGenre.values().forEach(BitSet::clear);
+            byMpa.values().forEach(BitSet::clear);
+            byYear.clear();
+            indexed.clear();
+            allFilms.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        films.forEach(this::index);
+        log.info("Индекс фасетов построен для {} фильмов", allFilms.cardinality());
+    }
+
+    /**
+     * Добавляет фильм в индекс или обновляет его фасеты, если фильм уже проиндексирован.
+     *
+     * @param film фильм с заполненными ID, жанрами, рейтингом и датой выхода
+     */
+    public void index(Film film) {
+        int id = film.getId();
+        lock.writeLock().lock();
+        try {
+            Facets previous = indexed.get(id);
+            if (previous != null) {
+                setBits(previous, id, false);
+            }
+            Facets facets = new Facets(List.copyOf(film.getGenres()), film.getMpa(), film.getReleaseDate());
+            setBits(facets, id, true);
+            indexed.put(id, facets);
+            allFilms.set(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает множество ID фильмов, подходящих под все заданные фильтры.
+     * Незаданный фильтр ({@code null}) не ограничивает выборку.
+     *
+     * @param genre жанр или {@code null}
+     * @param mpa   рейтинг MPA или {@code null}
+     * @param year  год выхода или {@code null}
+     * @return новый BitSet с ID подходящих фильмов
+     */
+    public BitSet filter(Genre genre, Mpa mpa, Integer year) {
+        lock.readLock().lock();
+        try {
+            BitSet result = (BitSet) allFilms.clone();
+            if (genre != null) {
+                result.and(byGenre.get(genre));
+            }
+            if (mpa != null) {
+                result.and(byMpa.get(mpa));
+            }
+            if (year != null) {
+                BitSet films = byYear.get(year);
+                if (films == null) {
+                    return new BitSet();
+                }
+                result.and(films);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void setBits(Facets facets, int id, boolean value) {
+        for (Genre genre : facets.genres()) {
+            byGenre.get(genre).set(id, value);
+        }
+        if (facets.mpa() != null) {
+            byMpa.get(facets.mpa()).set(id, value);
+        }
+        if (facets.releaseDate() != null) {
+            byYear.computeIfAbsent(facets.releaseDate().getYear(), k -> new BitSet()).set(id, value);
+        }
+    }
+
+    /**
+     * Значения фасетов, с которыми фильм был проиндексирован; нужны, чтобы снять старые биты при обновлении.
+     */
+    private record Facets(List<Genre> genres, Mpa mpa, LocalDate releaseDate) {
+    }
+}
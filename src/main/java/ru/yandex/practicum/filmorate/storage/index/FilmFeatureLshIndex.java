@@ -0,0 +1,192 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Индекс похожих по содержанию фильмов на основе локально-чувствительного хеширования (LSH).
+ * <p>
+ * Каждый фильм описывается вектором признаков: по одной координате на жанр (1, если жанр есть),
+ * рейтинг MPA, год выхода и продолжительность, приведённые к диапазону [-1, 1].
+ * Вектор хешируется в {@code tables} таблиц; в каждой таблице ключом корзины служат знаки
+ * скалярных произведений вектора на {@code bits} случайных гиперплоскостей.
+ * Фильмы с близкими по косинусу векторами с высокой вероятностью попадают в общую корзину
+ * хотя бы одной таблицы, поэтому кандидаты находятся без перебора всего каталога.
+ * Если кандидатов не хватает, дополнительно просматриваются корзины, отличающиеся одним битом.
+ * <p>
+ * Индекс не зависит от лайков и подходит для новых фильмов. Он строится параллельно при старте
+ * из {@link FilmIndexLoader} и обновляется из {@code FilmService} при добавлении и изменении фильмов.
+ */
+@Slf4j
+@Component
+public class FilmFeatureLshIndex {
+
+    private static final int GENRES = Genre.values().length;
+    private static final int DIMENSIONS = GENRES + 3;
+    private static final int MIN_YEAR = 1895;
+    private static final int MAX_YEAR = 2035;
+    private static final int MAX_DURATION = 240;
+    private static final long SEED = 42L;
+
+    private final int bits;
+    private final float[][][] hyperplanes;
+    private final List<Map<Integer, Set<Integer>>> buckets;
+    private final Map<Integer, float[]> vectors = new ConcurrentHashMap<>();
+    private final Map<Integer, int[]> signatures = new ConcurrentHashMap<>();
+
+    public FilmFeatureLshIndex(@Value("${filmorate.alike-films.tables:8}") int tables,
+                               @Value("${filmorate.alike-films.bits:6}") int bits) {
+        this.bits = bits;
+        Random random = new Random(SEED);
+        this.hyperplanes = new float[tables][bits][DIMENSIONS];
+        for (float[][] table : hyperplanes) {
+            for (float[] plane : table) {
+                for (int i = 0; i < DIMENSIONS; i++) {
+                    plane[i] = (float) random.nextGaussian();
+                }
+            }
+        }
+        this.buckets = Stream.<Map<Integer, Set<Integer>>>generate(ConcurrentHashMap::new)
+                .limit(tables)
+                .toList();
+    }
+
+    /**
+     * Очищает индекс и параллельно индексирует все фильмы каталога.
+     *
+     * @param films все фильмы из хранилища
+     */
+    public void rebuild(Collection<Film> films) {
+        buckets.forEach(Map::clear);
+        vectors.clear();
+        signatures.clear();
+        films.parallelStream().forEach(this::index);
+        log.info("LSH-индекс признаков фильмов построен: {} фильмов, {} таблиц", vectors.size(), buckets.size());
+    }
+
+    /**
+     * Добавляет фильм в индекс или переносит его в новые корзины, если признаки изменились.
+     *
+     * @param film фильм с заполненными ID, жанрами, рейтингом, датой выхода и продолжительностью
+     */
+    public void index(Film film) {
+        int filmId = film.getId();
+        float[] vector = toVector(film);
+        int[] signature = new int[hyperplanes.length];
+        for (int table = 0; table < hyperplanes.length; table++) {
+            signature[table] = hash(vector, hyperplanes[table]);
+        }
+        int[] previous = signatures.put(filmId, signature);
+        vectors.put(filmId, vector);
+        for (int table = 0; table < hyperplanes.length; table++) {
+            if (previous != null && previous[table] != signature[table]) {
+                Set<Integer> bucket = buckets.get(table).get(previous[table]);
+                if (bucket != null) {
+                    bucket.remove(filmId);
+                }
+            }
+            buckets.get(table).computeIfAbsent(signature[table], k -> ConcurrentHashMap.newKeySet()).add(filmId);
+        }
+    }
+
+    /**
+     * Находит фильмы с наиболее близкими признаками.
+     *
+     * @param filmId ID фильма
+     * @param limit  максимальное количество фильмов
+     * @return ID похожих фильмов по убыванию косинусной близости
+     */
+    public List<Integer> getAlikeFilms(int filmId, int limit) {
+        float[] vector = vectors.get(filmId);
+        int[] signature = signatures.get(filmId);
+        if (vector == null || signature == null) {
+            return List.of();
+        }
+        Set<Integer> candidates = new HashSet<>();
+        for (int table = 0; table < signature.length; table++) {
+            candidates.addAll(buckets.get(table).getOrDefault(signature[table], Set.of()));
+        }
+        candidates.remove(filmId);
+        if (candidates.size() < limit) {
+            for (int table = 0; table < signature.length; table++) {
+                for (int bit = 0; bit < bits; bit++) {
+                    candidates.addAll(buckets.get(table).getOrDefault(signature[table] ^ (1 << bit), Set.of()));
+                }
+            }
+            candidates.remove(filmId);
+        }
+
+        Map<Integer, Double> similarity = new HashMap<>();
+        for (Integer candidate : candidates) {
+            float[] other = vectors.get(candidate);
+            if (other != null) {
+                similarity.put(candidate, cosine(vector, other));
+            }
+        }
+        return similarity.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static float[] toVector(Film film) {
+        float[] vector = new float[DIMENSIONS];
+        for (Genre genre : film.getGenres()) {
+            vector[genre.ordinal()] = 1;
+        }
+        vector[GENRES] = scale(film.getMpa().ordinal(), 0, Mpa.values().length - 1);
+        vector[GENRES + 1] = scale(film.getReleaseDate().getYear(), MIN_YEAR, MAX_YEAR);
+        vector[GENRES + 2] = scale(Math.min(film.getDuration(), MAX_DURATION), 0, MAX_DURATION);
+        return vector;
+    }
+
+    /**
+     * Линейно переводит значение из диапазона [min, max] в [-1, 1].
+     */
+    private static float scale(int value, int min, int max) {
+        return 2f * (value - min) / (max - min) - 1;
+    }
+
+    private static int hash(float[] vector, float[][] planes) {
+        int signature = 0;
+        for (int bit = 0; bit < planes.length; bit++) {
+            float dot = 0;
+            for (int i = 0; i < DIMENSIONS; i++) {
+                dot += vector[i] * planes[bit][i];
+            }
+            if (dot >= 0) {
+                signature |= 1 << bit;
+            }
+        }
+        return signature;
+    }
+
+    private static double cosine(float[] first, float[] second) {
+        double dot = 0;
+        double firstNorm = 0;
+        double secondNorm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            dot += first[i] * second[i];
+            firstNorm += first[i] * first[i];
+            secondNorm += second[i] * second[i];
+        }
+        return firstNorm == 0 || secondNorm == 0 ? 0 : dot / Math.sqrt(firstNorm * secondNorm);
+    }
+}
@@ -0,0 +1,178 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Приближённый поиск самых лайкаемых фильмов при очень большом потоке лайков.
+ * <p>
+ * Частоты считаются в Count-Min sketch: {@code depth} строк по {@code width} счётчиков,
+ * где {@code width = ceil(e / epsilon)} и {@code depth = ceil(ln(1 / delta))}.
+ * Оценка частоты не бывает меньше точной и с вероятностью не меньше {@code 1 - delta}
+ * превышает её не больше чем на {@code epsilon * N}, где N — число учтённых лайков.
+ * Счётчики sketch-а увеличиваются атомарно, без блокировок.
+ * <p>
+ * Кандидаты в топ хранятся в ограниченном наборе из {@code capacity} фильмов, как в алгоритме
+ * Space-Saving: новый фильм вытесняет кандидата с наименьшей оценкой, только если его оценка больше.
+ * Пока оценка фильма не превышает этот минимум, лайк обходится без блокировки набора.
+ * <p>
+ * Чтобы топ отражал недавнюю активность, все счётчики периодически уменьшаются вдвое.
+ * Удаление лайков не учитывается: sketch считает поток событий, а не текущее состояние.
+ * При старте {@code FilmDbStorage} заполняет sketch лайками за период хранения счётчиков трендов.
+ */
+@Component
+public class FilmHeavyHitters {
+
+    private final int width;
+    private final int depth;
+    private final int capacity;
+    private final AtomicLongArray cells;
+    private final int[] seeds;
+    private final Map<Integer, Long> candidates = new ConcurrentHashMap<>();
+    private volatile long floor;
+
+    public FilmHeavyHitters(@Value("${filmorate.trending.approx.epsilon:0.001}") double epsilon,
+                            @Value("${filmorate.trending.approx.delta:0.01}") double delta,
+                            @Value("${filmorate.trending.approx.capacity:100}") int capacity) {
+        this.width = (int) Math.ceil(Math.E / epsilon);
+        this.depth = (int) Math.ceil(Math.log(1 / delta));
+        this.capacity = capacity;
+        this.cells = new AtomicLongArray(width * depth);
+        this.seeds = new int[depth];
+        for (int row = 0; row < depth; row++) {
+            seeds[row] = mix(0x9E3779B9 * (row + 1));
+        }
+    }
+
+    /**
+     * Обнуляет sketch и заполняет его количеством недавних лайков фильмов.
+     *
+     * @param likesByFilm количество лайков каждого фильма за период хранения счётчиков трендов
+     */
+    public void rebuild(Map<Integer, Long> likesByFilm) {
+        for (int i = 0; i < cells.length(); i++) {
+            cells.set(i, 0);
+        }
+        synchronized (candidates) {
+            candidates.clear();
+            floor = 0;
+        }
+        likesByFilm.forEach(this::offer);
+    }
+
+    /**
+     * Учитывает лайк фильма.
+     *
+     * @param filmId ID фильма
+     */
+    public void offer(int filmId) {
+        offer(filmId, 1);
+    }
+
+    /**
+     * Учитывает несколько лайков фильма сразу.
+     *
+     * @param filmId ID фильма
+     * @param likes  количество лайков, больше нуля
+     */
+    public void offer(int filmId, long likes) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cells.addAndGet(cell(row, filmId), likes));
+        }
+        if (estimate <= floor && candidates.size() >= capacity && !candidates.containsKey(filmId)) {
+            return;
+        }
+        synchronized (candidates) {
+            if (candidates.containsKey(filmId) || candidates.size() < capacity) {
+                candidates.put(filmId, estimate);
+            } else {
+                Map.Entry<Integer, Long> min = minCandidate();
+                if (estimate <= min.getValue()) {
+                    return;
+                }
+                candidates.remove(min.getKey());
+                candidates.put(filmId, estimate);
+            }
+            if (candidates.size() >= capacity) {
+                floor = minCandidate().getValue();
+            }
+        }
+    }
+
+    /**
+     * Возвращает оценку количества лайков фильма.
+     *
+     * @param filmId ID фильма
+     * @return оценка сверху с учётом затухания
+     */
+    public long estimate(int filmId) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cells.get(cell(row, filmId)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Возвращает фильмы с наибольшей оценкой количества лайков.
+     *
+     * @param limit максимальное количество фильмов (не больше {@code capacity})
+     * @return ID фильмов по убыванию оценки
+     */
+    public List<Integer> getTopFilms(int limit) {
+        return candidates.keySet().stream()
+                .map(filmId -> Map.entry(filmId, estimate(filmId)))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<Integer, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(Math.max(limit, 0))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Уменьшает вдвое все счётчики, чтобы старые лайки постепенно переставали влиять на топ.
+     */
+    @Scheduled(fixedRateString = "${filmorate.trending.approx.decay-ms:3600000}",
+            initialDelayString = "${filmorate.trending.approx.decay-ms:3600000}")
+    public void decay() {
+        for (int i = 0; i < cells.length(); i++) {
+            cells.getAndUpdate(i, value -> value >> 1);
+        }
+        synchronized (candidates) {
+            candidates.replaceAll((filmId, value) -> value >> 1);
+            candidates.values().removeIf(value -> value == 0);
+            floor = candidates.size() >= capacity ? minCandidate().getValue() : 0;
+        }
+    }
+
+    private Map.Entry<Integer, Long> minCandidate() {
+        return candidates.entrySet().stream()
+                .min(Map.Entry.comparingByValue())
+                .orElseThrow();
+    }
+
+    private int cell(int row, int filmId) {
+        return row * width + Math.floorMod(mix(filmId ^ seeds[row]), width);
+    }
+
+    /**
+     * Перемешивает биты числа (финализатор MurmurHash3), чтобы соседние ID попадали в разные ячейки.
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
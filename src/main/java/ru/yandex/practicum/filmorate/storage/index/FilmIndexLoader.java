@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.List;
+
+/**
+ * Загружает каталог фильмов при старте приложения и строит по нему индексы содержимого фильмов.
+ * <p>
+ * Все фильмы с жанрами и лайками читаются из базы одним вызовом {@code getAllFilms},
+ * после чего один и тот же список передаётся в {@code rebuild} каждого индекса.
+ */
+@Slf4j
+@Component
+public class FilmIndexLoader {
+    private final FilmStorage filmStorage;
+    private final FilmFacetIndex facetIndex;
+    private final FilmColumnStore columnStore;
+    private final FilmTextIndex textIndex;
+    private final FilmTitleTrie titleTrie;
+    private final FilmFeatureLshIndex featureIndex;
+
+    public FilmIndexLoader(@Qualifier("filmDbStorage") FilmStorage filmStorage, FilmFacetIndex facetIndex,
+                           FilmColumnStore columnStore, FilmTextIndex textIndex, FilmTitleTrie titleTrie,
+                           FilmFeatureLshIndex featureIndex) {
+        this.filmStorage = filmStorage;
+        this.facetIndex = facetIndex;
+        this.columnStore = columnStore;
+        this.textIndex = textIndex;
+        this.titleTrie = titleTrie;
+        this.featureIndex = featureIndex;
+    }
+
+    /**
+     * Читает все фильмы из базы и перестраивает по ним индексы.
+     */
+    @PostConstruct
+    public void load() {
+        List<Film> films = filmStorage.getAllFilms();
+        log.info("Загружено {} фильмов для построения индексов", films.size());
+        facetIndex.rebuild(films);
+        columnStore.rebuild(films);
+        textIndex.rebuild(films);
+        titleTrie.rebuild(films);
+        featureIndex.rebuild(films);
+    }
+}
@@ -0,0 +1,313 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Полнотекстовый инвертированный индекс по названиям и описаниям фильмов.
+ * <p>
+ * Текст разбивается на слова по любым символам, кроме букв и цифр, поэтому одинаково
+ * обрабатываются кириллица и латиница; слова приводятся к нижнему регистру, «ё» заменяется на «е».
+ * Для каждого слова хранится сжатый список вхождений: ID фильмов по возрастанию
+ * в виде разностей с предыдущим ID и частоты слова, всё в varint-кодировке.
+ * Слова из названия учитываются с весом {@link #NAME_WEIGHT}.
+ * <p>
+ * Релевантность считается по формуле BM25. Индекс загружается при старте из {@link FilmIndexLoader}
+ * и обновляется инкрементально из {@code FilmService.addFilm}/{@code updateFilm}:
+ * при изменении фильма из индекса удаляются только его старые вхождения.
+ */
+@Slf4j
+@Component
+public class FilmTextIndex {
+
+    private static final int NAME_WEIGHT = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Integer, Set<String>> termsByFilm = new HashMap<>();
+    private final Map<Integer, Integer> lengthByFilm = new HashMap<>();
+    private long totalLength;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Заменяет содержимое индекса всеми фильмами каталога.
+     *
+     * @param films все фильмы из хранилища
+     */
+    public void rebuild(Collection<Film> films) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByFilm.clear();
+            lengthByFilm.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        films.forEach(this::index);
+        log.info("Полнотекстовый индекс построен: фильмов {}, слов {}", termsByFilm.size(), postings.size());
+    }
+
+    /**
+     * Добавляет фильм в индекс или переиндексирует его, если он уже был проиндексирован.
+     *
+     * @param film фильм с заполненными ID, названием и описанием
+     */
+    public void index(Film film) {
+        int filmId = film.getId();
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String term : tokenize(film.getName())) {
+            frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+            length += NAME_WEIGHT;
+        }
+        for (String term : tokenize(film.getDescription())) {
+            frequencies.merge(term, 1, Integer::sum);
+            length++;
+        }
+
+        lock.writeLock().lock();
+        try {
+            remove(filmId);
+            frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, k -> new PostingList()).add(filmId, tf));
+            termsByFilm.put(filmId, frequencies.keySet());
+            lengthByFilm.put(filmId, length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ищет фильмы, содержащие хотя бы одно слово запроса.
+     *
+     * @param query поисковая строка
+     * @return отображение ID фильма на BM25-релевантность
+     */
+    public Map<Integer, Double> search(String query) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        Map<Integer, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int films = lengthByFilm.size();
+            if (films == 0) {
+                return scores;
+            }
+            double averageLength = (double) totalLength / films;
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (films - list.count + 0.5) / (list.count + 0.5));
+                list.forEach((filmId, tf) -> {
+                    double norm = K1 * (1 - B + B * lengthByFilm.get(filmId) / averageLength);
+                    scores.merge(filmId, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                });
+            }
+            return scores;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Разбивает текст на нормализованные слова.
+     *
+     * @param text текст на любом языке
+     * @return список слов в нижнем регистре
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private void remove(int filmId) {
+        Set<String> terms = termsByFilm.remove(filmId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            list.remove(filmId);
+            if (list.count == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= lengthByFilm.remove(filmId);
+    }
+
+    /**
+     * Сжатый список вхождений слова: пары (разность ID фильма с предыдущим, частота) в varint-кодировке.
+     * ID фильмов хранятся по возрастанию; новые фильмы обычно имеют наибольший ID
+     * и дописываются в конец без перекодирования списка.
+     * <p>
+     * Вставка в середину и удаление находят вхождение одним проходом по байтам списка,
+     * перекодируют только разность ID следующего вхождения и сдвигают хвост массива
+     * через {@link System#arraycopy}. Стоимость операции — O(размер списка в байтах)
+     * без создания объектов на вхождение.
+     */
+    private static class PostingList {
+        private byte[] data = new byte[8];
+        private int size;
+        private int count;
+        private int lastFilmId;
+
+        void add(int filmId, int tf) {
+            if (count > 0 && filmId <= lastFilmId) {
+                insert(filmId, tf);
+                return;
+            }
+            ensureCapacity(size + 10);
+            size = writeVarInt(data, size, filmId - lastFilmId);
+            size = writeVarInt(data, size, tf);
+            lastFilmId = filmId;
+            count++;
+        }
+
+        void remove(int filmId) {
+            int[] position = {0};
+            int previousId = 0;
+            while (position[0] < size) {
+                int start = position[0];
+                int delta = readVarInt(position);
+                readVarInt(position);
+                int id = previousId + delta;
+                if (id == filmId) {
+                    if (position[0] == size) {
+                        size = start;
+                        lastFilmId = previousId;
+                    } else {
+                        int nextDelta = readVarInt(position);
+                        byte[] merged = new byte[5];
+                        splice(start, position[0], merged, writeVarInt(merged, 0, delta + nextDelta));
+                    }
+                    count--;
+                    return;
+                }
+                if (id > filmId) {
+                    return;
+                }
+                previousId = id;
+            }
+        }
+
+        void forEach(PostingConsumer consumer) {
+            int[] position = {0};
+            int filmId = 0;
+            while (position[0] < size) {
+                filmId += readVarInt(position);
+                consumer.accept(filmId, readVarInt(position));
+            }
+        }
+
+        /**
+         * Вставляет вхождение перед первым фильмом с большим ID; разность этого фильма
+         * пересчитывается относительно вставленного.
+         */
+        private void insert(int filmId, int tf) {
+            int[] position = {0};
+            int previousId = 0;
+            while (true) {
+                int start = position[0];
+                int id = previousId + readVarInt(position);
+                if (id > filmId) {
+                    byte[] inserted = new byte[15];
+                    int length = writeVarInt(inserted, 0, filmId - previousId);
+                    length = writeVarInt(inserted, length, tf);
+                    length = writeVarInt(inserted, length, id - filmId);
+                    splice(start, position[0], inserted, length);
+                    count++;
+                    return;
+                }
+                readVarInt(position);
+                previousId = id;
+            }
+        }
+
+        /**
+         * Заменяет байты {@code [from, to)} первыми {@code length} байтами {@code bytes}, сдвигая хвост списка.
+         */
+        private void splice(int from, int to, byte[] bytes, int length) {
+            int newSize = size - (to - from) + length;
+            ensureCapacity(newSize);
+            System.arraycopy(data, to, data, from + length, size - to);
+            System.arraycopy(bytes, 0, data, from, length);
+            size = newSize;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, capacity));
+            }
+        }
+
+        /**
+         * Записывает число в varint-кодировке.
+         *
+         * @param target массив, в который выполняется запись
+         * @param offset позиция записи
+         * @param value  неотрицательное число
+         * @return позиция после записанного числа
+         */
+        private static int writeVarInt(byte[] target, int offset, int value) {
+            while ((value & ~0x7F) != 0) {
+                target[offset++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            target[offset++] = (byte) value;
+            return offset;
+        }
+
+        /**
+         * Читает число в varint-кодировке и сдвигает позицию на следующий байт.
+         *
+         * @param position массив из одного элемента с текущей позицией чтения
+         * @return прочитанное значение
+         */
+        private int readVarInt(int[] position) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position[0]++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+
+    @FunctionalInterface
+    private interface PostingConsumer {
+        void accept(int filmId, int tf);
+    }
+}
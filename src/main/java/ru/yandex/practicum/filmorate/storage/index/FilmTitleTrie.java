@@ -0,0 +1,329 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Префиксное дерево по нормализованным названиям фильмов для автодополнения.
+ * <p>
+ * Дети узла хранятся в отсортированных массивах символов и ссылок, без отдельной карты на каждый узел.
+ * Каждый узел кеширует до {@code topK} самых популярных фильмов своего поддерева,
+ * поэтому ответ на запрос — это спуск по префиксу и копирование готового списка.
+ * <p>
+ * Кеши обновляются инкрементально: новый фильм или рост числа лайков продвигают фильм
+ * в кешах узлов на его пути. Потеря лайков опускает фильм внутри кеша, а удаление старого названия
+ * убирает его из кеша. Если при этом место в заполненном кеше может занять фильм за его пределами,
+ * кеш узла добирается слиянием кешей детей и собственных фильмов узла. Такие узлы обходятся
+ * от листа к корню, поэтому кеши детей к этому моменту уже точные, а поддерево не обходится.
+ */
+@Slf4j
+@Component
+public class FilmTitleTrie {
+
+    private final int topK;
+    private Node root = new Node();
+    private final Map<Integer, String> names = new HashMap<>();
+    private final Map<Integer, Integer> likes = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public FilmTitleTrie(@Value("${filmorate.autocomplete.top-k:10}") int topK) {
+        this.topK = topK;
+    }
+
+    /**
+     * Заменяет содержимое дерева названиями и количеством лайков всех фильмов каталога.
+     *
+     * @param films все фильмы из хранилища с лайками
+     */
+    public void rebuild(Collection<Film> films) {
+        lock.writeLock().lock();
+        try {
+            root = new Node();
+            names.clear();
+            likes.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Film film : films) {
+            index(film);
+            updateLikes(film.getId(), film.getLikes().size());
+        }
+        log.info("Дерево названий фильмов построено: {} фильмов", names.size());
+    }
+
+    /**
+     * Добавляет фильм в дерево или переносит его, если название изменилось.
+     *
+     * @param film фильм с заполненными ID и названием
+     */
+    public void index(Film film) {
+        int filmId = film.getId();
+        lock.writeLock().lock();
+        try {
+            String previous = names.get(filmId);
+            if (previous != null) {
+                if (previous.equals(film.getName())) {
+                    return;
+                }
+                remove(filmId, previous);
+            }
+            names.put(filmId, film.getName());
+            likes.putIfAbsent(filmId, 0);
+            Node node = root;
+            node.promote(filmId);
+            for (char c : normalize(film.getName()).toCharArray()) {
+                node = node.childOrCreate(c);
+                node.promote(filmId);
+            }
+            node.films.add(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Обновляет популярность фильма и кеши узлов на пути его названия.
+     *
+     * @param filmId     ID фильма
+     * @param likesCount актуальное количество лайков
+     */
+    public void updateLikes(int filmId, int likesCount) {
+        lock.writeLock().lock();
+        try {
+            String name = names.get(filmId);
+            if (name == null) {
+                return;
+            }
+            Integer previous = likes.put(filmId, likesCount);
+            List<Node> path = path(normalize(name));
+            if (previous != null && likesCount < previous) {
+                for (int i = path.size() - 1; i >= 0; i--) {
+                    path.get(i).demote(filmId);
+                }
+            } else {
+                path.forEach(node -> node.promote(filmId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает самые популярные фильмы, название которых начинается с префикса.
+     *
+     * @param prefix начало названия (регистр и «ё»/«е» не важны; пробел в конце означает конец слова)
+     * @param limit  максимальное количество фильмов (не больше topK)
+     * @return ID и названия фильмов по убыванию популярности
+     */
+    public List<Map.Entry<Integer, String>> complete(String prefix, int limit) {
+        String normalized = normalizePrefix(prefix);
+        lock.readLock().lock();
+        try {
+            Node node = find(normalized);
+            return node == null ? List.of() : node.top(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Приводит название к виду, по которому строится дерево:
+     * нижний регистр, «ё» заменена на «е», пробелы по краям убраны и схлопнуты.
+     *
+     * @param name название фильма
+     * @return нормализованное название
+     */
+    static String normalize(String name) {
+        return normalizePrefix(name).stripTrailing();
+    }
+
+    /**
+     * Нормализует префикс запроса так же, как название, но сохраняет пробел в конце:
+     * префикс {@code "star "} не должен находить {@code "starship"}.
+     *
+     * @param prefix начало названия
+     * @return нормализованный префикс
+     */
+    static String normalizePrefix(String prefix) {
+        return prefix.toLowerCase(Locale.ROOT).replace('ё', 'е').stripLeading().replaceAll("\\s+", " ");
+    }
+
+    private void remove(int filmId, String name) {
+        List<Node> path = path(normalize(name));
+        path.get(path.size() - 1).films.remove(Integer.valueOf(filmId));
+        for (int i = path.size() - 1; i >= 0; i--) {
+            path.get(i).evict(filmId);
+        }
+    }
+
+    private List<Node> path(String normalized) {
+        List<Node> path = new ArrayList<>(normalized.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < normalized.length() && node != null; i++) {
+            node = node.child(normalized.charAt(i));
+            if (node != null) {
+                path.add(node);
+            }
+        }
+        return path;
+    }
+
+    private Node find(String normalized) {
+        Node node = root;
+        for (int i = 0; i < normalized.length() && node != null; i++) {
+            node = node.child(normalized.charAt(i));
+        }
+        return node;
+    }
+
+    private int compare(int firstId, int secondId) {
+        int byLikes = Integer.compare(likes.getOrDefault(secondId, 0), likes.getOrDefault(firstId, 0));
+        return byLikes != 0 ? byLikes : Integer.compare(firstId, secondId);
+    }
+
+    /**
+     * Узел дерева. Кеш {@code top} отсортирован по убыванию популярности.
+     */
+    private class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private final List<Integer> films = new ArrayList<>(1);
+        private int[] top = new int[0];
+
+        Node child(char c) {
+            int position = Arrays.binarySearch(keys, c);
+            return position >= 0 ? children[position] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int position = Arrays.binarySearch(keys, c);
+            if (position >= 0) {
+                return children[position];
+            }
+            int insertAt = -position - 1;
+            Node child = new Node();
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = c;
+            newChildren[insertAt] = child;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        /**
+         * Добавляет фильм в кеш или поднимает его позицию, если популярность выросла.
+         */
+        void promote(int filmId) {
+            int position = indexOf(filmId);
+            if (position < 0) {
+                if (top.length < topK) {
+                    top = Arrays.copyOf(top, top.length + 1);
+                } else if (compare(filmId, top[top.length - 1]) >= 0) {
+                    return;
+                }
+                position = top.length - 1;
+                top[position] = filmId;
+            }
+            while (position > 0 && compare(top[position], top[position - 1]) < 0) {
+                swap(position, position - 1);
+                position--;
+            }
+        }
+
+        /**
+         * Опускает фильм в кеше после уменьшения популярности. Если фильм оказался последним
+         * в заполненном кеше, его место мог занять фильм за пределами кеша, и кеш добирается из детей.
+         */
+        void demote(int filmId) {
+            int position = indexOf(filmId);
+            if (position < 0) {
+                return;
+            }
+            while (position < top.length - 1 && compare(top[position], top[position + 1]) > 0) {
+                swap(position, position + 1);
+                position++;
+            }
+            if (top.length == topK && position == top.length - 1) {
+                refill();
+            }
+        }
+
+        /**
+         * Убирает фильм из кеша. Заполненный кеш после этого добирается из детей.
+         */
+        void evict(int filmId) {
+            int position = indexOf(filmId);
+            if (position < 0) {
+                return;
+            }
+            boolean full = top.length == topK;
+            int[] updated = new int[top.length - 1];
+            System.arraycopy(top, 0, updated, 0, position);
+            System.arraycopy(top, position + 1, updated, position, top.length - position - 1);
+            top = updated;
+            if (full) {
+                refill();
+            }
+        }
+
+        /**
+         * Пересчитывает кеш из собственных фильмов узла и кешей детей, которые уже должны быть точными:
+         * каждый из лучших {@code topK} фильмов поддерева либо оканчивается в этом узле,
+         * либо входит в кеш своего ребёнка.
+         */
+        void refill() {
+            List<Integer> candidates = new ArrayList<>(films);
+            for (Node child : children) {
+                for (int filmId : child.top) {
+                    candidates.add(filmId);
+                }
+            }
+            top = candidates.stream()
+                    .sorted(FilmTitleTrie.this::compare)
+                    .limit(topK)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        List<Map.Entry<Integer, String>> top(int limit) {
+            List<Map.Entry<Integer, String>> result = new ArrayList<>(Math.max(0, Math.min(limit, top.length)));
+            for (int i = 0; i < top.length && i < limit; i++) {
+                result.add(Map.entry(top[i], names.get(top[i])));
+            }
+            return result;
+        }
+
+        private int indexOf(int filmId) {
+            for (int i = 0; i < top.length; i++) {
+                if (top[i] == filmId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void swap(int i, int j) {
+            int tmp = top[i];
+            top[i] = top[j];
+            top[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Счётчики лайков в скользящем окне для выборки фильмов, набирающих популярность.
+ * <p>
+ * Для каждого фильма хранится кольцевой буфер из {@code retentionHours} часовых корзин:
+ * корзина с номером {@code час % retentionHours} считает лайки за этот час.
+ * Устаревшие корзины не очищаются отдельно: корзина обнуляется, когда в неё попадает лайк
+ * более позднего часа, а при подсчёте окна учитываются только корзины, попадающие в окно.
+ * Буферы фильмов без лайков за весь период хранения удаляются при очередном подсчёте.
+ * <p>
+ * Счётчики заполняются из {@code FilmDbStorage}: при старте загружаются лайки за период хранения,
+ * затем учитывается каждое добавление и удаление лайка с его временем.
+ */
+@Component
+public class FilmTrendingCounters {
+
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    private final int retentionHours;
+    private final Clock clock = Clock.systemUTC();
+    private final Map<Integer, Ring> rings = new ConcurrentHashMap<>();
+
+    public FilmTrendingCounters(@Value("${filmorate.trending.retention-hours:168}") int retentionHours) {
+        this.retentionHours = retentionHours;
+    }
+
+    /**
+     * Возвращает максимальную длину окна, за которое хранятся счётчики.
+     *
+     * @return период хранения в часах
+     */
+    public int getRetentionHours() {
+        return retentionHours;
+    }
+
+    /**
+     * Возвращает момент, начиная с которого лайки ещё попадают в период хранения.
+     *
+     * @return начало периода хранения
+     */
+    public Instant getRetentionStart() {
+        return Instant.ofEpochSecond((currentHour() - retentionHours + 1) * SECONDS_PER_HOUR);
+    }
+
+    /**
+     * Удаляет все счётчики перед повторной загрузкой лайков из хранилища.
+     */
+    public void clear() {
+        rings.clear();
+    }
+
+    /**
+     * Учитывает лайк, поставленный в указанный момент.
+     *
+     * @param filmId  ID фильма
+     * @param likedAt время лайка
+     */
+    public void onLikeAdded(int filmId, Instant likedAt) {
+        long hour = toHour(likedAt);
+        if (isRetained(hour)) {
+            rings.compute(filmId, (id, ring) -> {
+                Ring target = ring == null ? new Ring(retentionHours) : ring;
+                target.add(hour, 1);
+                return target;
+            });
+        }
+    }
+
+    /**
+     * Отменяет лайк, поставленный в указанный момент.
+     *
+     * @param filmId  ID фильма
+     * @param likedAt время удалённого лайка
+     */
+    public void onLikeRemoved(int filmId, Instant likedAt) {
+        long hour = toHour(likedAt);
+        if (isRetained(hour)) {
+            rings.computeIfPresent(filmId, (id, ring) -> {
+                ring.add(hour, -1);
+                return ring;
+            });
+        }
+    }
+
+    /**
+     * Возвращает фильмы с наибольшим количеством лайков за последние {@code windowHours} часов,
+     * включая текущий час.
+     *
+     * @param windowHours длина окна в часах, не больше периода хранения
+     * @param limit       максимальное количество фильмов
+     * @return ID фильмов по убыванию количества лайков в окне; фильмы без лайков в окне не возвращаются
+     */
+    public List<Integer> getTrendingFilms(int windowHours, int limit) {
+        long now = currentHour();
+        long fromHour = now - windowHours + 1;
+        long retentionStart = now - retentionHours + 1;
+        Comparator<long[]> byCount = Comparator.<long[]>comparingLong(entry -> entry[1])
+                .thenComparingLong(entry -> -entry[0]);
+        PriorityQueue<long[]> top = new PriorityQueue<>(byCount);
+        for (Map.Entry<Integer, Ring> entry : rings.entrySet()) {
+            Ring ring = entry.getValue();
+            if (ring.lastHour < retentionStart) {
+                rings.computeIfPresent(entry.getKey(), (id, current) -> current.lastHour < retentionStart ? null : current);
+                continue;
+            }
+            long count = ring.sum(fromHour);
+            if (count > 0) {
+                top.offer(new long[]{entry.getKey(), count});
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+        List<Integer> result = new ArrayList<>(top.size());
+        top.stream()
+                .sorted(byCount.reversed())
+                .forEach(entry -> result.add((int) entry[0]));
+        return result;
+    }
+
+    private boolean isRetained(long hour) {
+        return hour > currentHour() - retentionHours;
+    }
+
+    private long currentHour() {
+        return toHour(clock.instant());
+    }
+
+    private static long toHour(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), SECONDS_PER_HOUR);
+    }
+
+    /**
+     * Кольцевой буфер часовых корзин одного фильма.
+     */
+    private static class Ring {
+        private final int[] counts;
+        private final long[] hours;
+        private volatile long lastHour = Long.MIN_VALUE;
+
+        Ring(int size) {
+            counts = new int[size];
+            hours = new long[size];
+            Arrays.fill(hours, Long.MIN_VALUE);
+        }
+
+        synchronized void add(long hour, int delta) {
+            int slot = Math.floorMod(hour, counts.length);
+            if (hours[slot] != hour) {
+                if (delta < 0) {
+                    return;
+                }
+                hours[slot] = hour;
+                counts[slot] = 0;
+            }
+            counts[slot] = Math.max(0, counts[slot] + delta);
+            lastHour = Math.max(lastHour, hour);
+        }
+
+        synchronized long sum(long fromHour) {
+            long sum = 0;
+            for (int slot = 0; slot < counts.length; slot++) {
+                if (hours[slot] >= fromHour) {
+                    sum += counts[slot];
+                }
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Разреженная in-memory матрица лайков «пользователь × фильм».
+ * <p>
+ * Хранит только ненулевые элементы в двух направлениях:
+ * пользователь → множество понравившихся фильмов и фильм → множество лайкнувших пользователей.
+ * Строится из таблицы film_likes при старте приложения и дальше обновляется инкрементально
+ * из {@code FilmService.addLike}/{@code removeLike}.
+ * <p>
+ * Поиск похожих пользователей считает меру Жаккара по пересечению множеств лайков.
+ * Пересечения накапливаются через обратный индекс фильм → пользователи, поэтому
+ * рассматриваются только пользователи, у которых есть хотя бы один общий лайк.
+ * Для больших множеств лайков подсчёт распараллеливается через fork/join.
+ */
+@Slf4j
+@Component
+public class UserFilmLikesMatrix {
+
+    /**
+     * Количество фильмов, которое обрабатывается одной подзадачей fork/join без дальнейшего деления.
+     */
+    private static final int FORK_THRESHOLD = 64;
+
+    private final Map<Integer, Set<Integer>> filmsByUser = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> usersByFilm = new ConcurrentHashMap<>();
+    private final FilmStorage filmStorage;
+
+    public UserFilmLikesMatrix(@Qualifier("filmDbStorage") FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    /**
+     * Загружает матрицу из таблицы film_likes.
+     */
+    @PostConstruct
+    public void rebuild() {
+        filmsByUser.clear();
+        usersByFilm.clear();
+        filmStorage.getLikedFilmsByUsers().forEach((userId, filmIds) ->
+                filmIds.forEach(filmId -> addLike(filmId, userId)));
+        log.info("Матрица лайков построена: пользователей {}, фильмов {}", filmsByUser.size(), usersByFilm.size());
+    }
+
+    /**
+     * Отмечает лайк пользователя в матрице.
+     *
+     * @param filmId идентификатор фильма
+     * @param userId идентификатор пользователя
+     */
+    public void addLike(int filmId, int userId) {
+        filmsByUser.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(filmId);
+        usersByFilm.computeIfAbsent(filmId, k -> ConcurrentHashMap.newKeySet()).add(userId);
+    }
+
+    /**
+     * Убирает лайк пользователя из матрицы.
+     *
+     * @param filmId идентификатор фильма
+     * @param userId идентификатор пользователя
+     */
+    public void removeLike(int filmId, int userId) {
+        Set<Integer> films = filmsByUser.get(userId);
+        if (films != null) {
+            films.remove(filmId);
+        }
+        Set<Integer> users = usersByFilm.get(filmId);
+        if (users != null) {
+            users.remove(userId);
+        }
+    }
+
+    /**
+     * Возвращает фильмы, которым пользователь поставил лайк.
+     *
+     * @param userId идентификатор пользователя
+     * @return неизменяемое представление множества фильмов (пустое, если лайков нет)
+     */
+    public Set<Integer> getLikedFilms(int userId) {
+        return Collections.unmodifiableSet(filmsByUser.getOrDefault(userId, Set.of()));
+    }
+
+    /**
+     * Возвращает пользователей, поставивших лайк фильму.
+     *
+     * @param filmId идентификатор фильма
+     * @return неизменяемое представление множества пользователей (пустое, если лайков нет)
+     */
+    public Set<Integer> getFilmLikers(int filmId) {
+        return Collections.unmodifiableSet(usersByFilm.getOrDefault(filmId, Set.of()));
+    }
+
+    /**
+     * Возвращает количество лайков фильма.
+     *
+     * @param filmId идентификатор фильма
+     * @return количество пользователей, поставивших лайк
+     */
+    public int getLikesCount(int filmId) {
+        return usersByFilm.getOrDefault(filmId, Set.of()).size();
+    }
+
+    /**
+     * Отбирает фильмы с наибольшим количеством лайков с помощью ограниченной кучи.
+     * При равенстве лайков выше фильм с меньшим ID. Количество лайков копируется в элемент кучи
+     * при добавлении, поэтому одновременные лайки не меняют порядок уже лежащих в куче элементов.
+     *
+     * @param candidates ID фильмов, из которых выбирать
+     * @param count      максимальное количество фильмов
+     * @return ID фильмов по убыванию количества лайков
+     */
+    public List<Integer> topByLikes(BitSet candidates, int count) {
+        Comparator<FilmLikes> byLikes = Comparator.comparingInt(FilmLikes::likes)
+                .thenComparing(FilmLikes::filmId, Comparator.reverseOrder());
+        PriorityQueue<FilmLikes> top = new PriorityQueue<>(byLikes);
+        for (int id = candidates.nextSetBit(0); id >= 0 && count > 0; id = candidates.nextSetBit(id + 1)) {
+            top.offer(new FilmLikes(id, getLikesCount(id)));
+            if (top.size() > count) {
+                top.poll();
+            }
+        }
+        return top.stream()
+                .sorted(byLikes.reversed())
+                .map(FilmLikes::filmId)
+                .toList();
+    }
+
+    /**
+     * Находит пользователей с наиболее похожими множествами лайков.
+     *
+     * @param userId идентификатор пользователя
+     * @param limit  максимальное количество соседей
+     * @return соседи, отсортированные по убыванию меры Жаккара
+     */
+    public List<UserSimilarity> findSimilarUsers(int userId, int limit) {
+        Set<Integer> liked = filmsByUser.getOrDefault(userId, Set.of());
+        if (liked.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Integer[] films = liked.toArray(new Integer[0]);
+        Map<Integer, Integer> overlaps = ForkJoinPool.commonPool()
+                .invoke(new OverlapTask(films, 0, films.length, userId));
+
+        List<UserSimilarity> similarities = new ArrayList<>(overlaps.size());
+        overlaps.forEach((otherId, common) -> {
+            int otherSize = filmsByUser.getOrDefault(otherId, Set.of()).size();
+            int union = films.length + otherSize - common;
+            if (union > 0) {
+                similarities.add(new UserSimilarity(otherId, (double) common / union));
+            }
+        });
+        return similarities.stream()
+                .sorted(Comparator.comparingDouble(UserSimilarity::similarity).reversed()
+                        .thenComparingInt(UserSimilarity::userId))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Подбирает пользователю фильмы по лайкам похожих пользователей.
+     * Каждому фильму, который понравился соседям, но не понравился пользователю,
+     * начисляется сумма мер сходства лайкнувших его соседей.
+     *
+     * @param userId     идентификатор пользователя
+     * @param neighbours максимальное количество учитываемых соседей
+     * @param count      максимальное количество фильмов
+     * @return ID фильмов по убыванию веса, при равенстве — по возрастанию ID
+     */
+    public List<Integer> recommendFilms(int userId, int neighbours, int count) {
+        Set<Integer> liked = filmsByUser.getOrDefault(userId, Set.of());
+        Map<Integer, Double> scores = new HashMap<>();
+        for (UserSimilarity neighbour : findSimilarUsers(userId, neighbours)) {
+            for (Integer filmId : filmsByUser.getOrDefault(neighbour.userId(), Set.of())) {
+                if (!liked.contains(filmId)) {
+                    scores.merge(filmId, neighbour.similarity(), Double::sum);
+                }
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(count)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Похожий пользователь и значение меры Жаккара между множествами лайков.
+     *
+     * @param userId     идентификатор похожего пользователя
+     * @param similarity мера Жаккара в диапазоне (0, 1]
+     */
+    public record UserSimilarity(int userId, double similarity) {
+    }
+
+    /**
+     * Элемент кучи в {@link #topByLikes}: ID фильма и количество его лайков на момент добавления в кучу.
+     */
+    private record FilmLikes(int filmId, int likes) {
+    }
+
+    /**
+     * Подзадача fork/join: для диапазона фильмов пользователя считает,
+     * сколько общих лайков с ним у каждого другого пользователя.
+     */
+    private class OverlapTask extends RecursiveTask<Map<Integer, Integer>> {
+        private final Integer[] films;
+        private final int from;
+        private final int to;
+        private final int userId;
+
+        OverlapTask(Integer[] films, int from, int to, int userId) {
+            this.films = films;
+            this.from = from;
+            this.to = to;
+            this.userId = userId;
+        }
+
+        @Override
+        protected Map<Integer, Integer> compute() {
+            if (to - from <= FORK_THRESHOLD) {
+                Map<Integer, Integer> overlaps = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    for (Integer otherId : usersByFilm.getOrDefault(films[i], Set.of())) {
+                        if (otherId != userId) {
+                            overlaps.merge(otherId, 1, Integer::sum);
+                        }
+                    }
+                }
+                return overlaps;
+            }
+            int middle = (from + to) >>> 1;
+            OverlapTask left = new OverlapTask(films, from, middle, userId);
+            left.fork();
+            Map<Integer, Integer> right = new OverlapTask(films, middle, to, userId).compute();
+            Map<Integer, Integer> result = left.join();
+            right.forEach((otherId, count) -> result.merge(otherId, count, Integer::sum));
+            return result;
+        }
+    }
+}
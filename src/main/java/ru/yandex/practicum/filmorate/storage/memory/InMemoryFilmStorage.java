@@ -0,0 +1,294 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory хранилище фильмов для профиля {@code in-memory}.
+ * <p>
+ * Фильмы, их жанры и лайки читаются из памяти; база остаётся источником долговечности:
+ * при старте хранилище загружает из неё все фильмы, а каждая запись сначала выполняется
+ * в {@code filmDbStorage} и только после успеха применяется в памяти. Поэтому ID фильмов,
+ * проверка внешних ключей и счётчики недавних лайков работают так же, как без профиля.
+ * Жанры фильма хранятся в порядке ID, лайки — отсортированным массивом ID пользователей;
+ * имена лайкнувших берутся из {@link InMemoryUserStorage}.
+ * <p>
+ * В этом профиле база должна изменяться только через приложение: записи в обход хранилища
+ * не попадут в память до перезапуска.
+ */
+@Repository("inMemoryFilmStorage")
+@Primary
+@Profile("in-memory")
+public class InMemoryFilmStorage implements FilmStorage {
+    private final FilmStorage filmDbStorage;
+    private final InMemoryUserStorage userStorage;
+    private final InMemoryTable<FilmRow> films = new InMemoryTable<>();
+
+    public InMemoryFilmStorage(@Qualifier("filmDbStorage") FilmStorage filmDbStorage,
+                               InMemoryUserStorage userStorage) {
+        this.filmDbStorage = filmDbStorage;
+        this.userStorage = userStorage;
+    }
+
+    /**
+     * Загружает все фильмы с жанрами и лайками из базы при старте приложения.
+     */
+    @PostConstruct
+    public void load() {
+        films.load(filmDbStorage.getAllFilms().stream().map(FilmRow::of).toList(), row -> row.film().getId());
+    }
+
+    @Override
+    public List<Film> getAllFilms() {
+        return films.snapshot(rows -> rows).stream()
+                .map(FilmRow::toFilm)
+                .toList();
+    }
+
+    /**
+     * Добавляет фильм в базу и в память. Как и в базе, жанры добавляются отдельно
+     * через {@link #addGenresForFilm}.
+     *
+     * @param film объект фильма без ID
+     * @return тот же объект фильма с проставленным ID
+     */
+    @Override
+    public Film addFilm(Film film) {
+        Film added = filmDbStorage.addFilm(film);
+        films.put(added.getId(), FilmRow.of(added).withGenres(List.of()));
+        return added;
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        return films.write(film.getId(), () -> {
+            FilmRow row = FilmRow.of(filmDbStorage.updateFilm(film));
+            films.put(film.getId(), row);
+            return row.toFilm();
+        });
+    }
+
+    @Override
+    public Optional<Film> getFilm(int filmId) {
+        return Optional.ofNullable(films.get(filmId)).map(FilmRow::toFilm);
+    }
+
+    @Override
+    public boolean isFilmPresent(Integer id) {
+        return id != null && films.contains(id);
+    }
+
+    @Override
+    public List<Film> getFilms(Collection<Integer> ids) {
+        return ids.stream()
+                .distinct()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(FilmRow::toFilm)
+                .toList();
+    }
+
+    @Override
+    public void addGenresForFilm(int filmId, Set<Integer> genresId) {
+        films.write(filmId, () -> {
+            filmDbStorage.addGenresForFilm(filmId, genresId);
+            films.update(filmId, row -> {
+                List<Genre> genres = new ArrayList<>(row.film().getGenres());
+                genresId.stream()
+                        .map(Genre::getGenreById)
+                        .filter(genre -> !genres.contains(genre))
+                        .forEach(genres::add);
+                genres.sort(Comparator.comparingInt(Genre::getId));
+                return row.withGenres(genres);
+            });
+        });
+    }
+
+    /**
+     * Возвращает названия жанров фильма из справочника в базе: названия в справочнике
+     * отличаются от названий в {@link Genre}.
+     *
+     * @param filmId ID фильма
+     * @return список жанров
+     */
+    @Override
+    public List<String> getFilmGenre(int filmId) {
+        return filmDbStorage.getFilmGenre(filmId);
+    }
+
+    /**
+     * Возвращает название рейтинга фильма из справочника в базе.
+     *
+     * @param filmId ID фильма
+     * @return строковое название рейтинга
+     */
+    @Override
+    public String getFilmRating(int filmId) {
+        return filmDbStorage.getFilmRating(filmId);
+    }
+
+    @Override
+    public List<String> getUsersNamesLikedFilm(int filmId) {
+        FilmRow row = films.get(filmId);
+        return row == null ? List.of() : userStorage.getNames(row.likes().stream());
+    }
+
+    @Override
+    public Map<Integer, List<String>> getUsersNamesLikedFilms(Collection<Integer> filmIds) {
+        Map<Integer, List<String>> names = new HashMap<>();
+        for (Integer filmId : Set.copyOf(filmIds)) {
+            FilmRow row = films.get(filmId);
+            if (row != null) {
+                List<String> likers = userStorage.getNames(row.likes().stream());
+                if (!likers.isEmpty()) {
+                    names.put(filmId, likers);
+                }
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public List<Integer> getFilmLikerIds(int filmId, int afterUserId, int limit) {
+        FilmRow row = films.get(filmId);
+        return row == null ? List.of() : row.likes().after(afterUserId, limit);
+    }
+
+    @Override
+    public List<Integer> getFilmIds(int afterId, int limit) {
+        return films.ids(afterId, limit);
+    }
+
+    @Override
+    public void updateFilmGenre(int filmId, Set<Integer> genresId) {
+        films.write(filmId, () -> {
+            filmDbStorage.updateFilmGenre(filmId, genresId);
+            List<Genre> genres = genresId.stream()
+                    .map(Genre::getGenreById)
+                    .distinct()
+                    .sorted(Comparator.comparingInt(Genre::getId))
+                    .toList();
+            films.update(filmId, row -> row.withGenres(genres));
+        });
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        return writeLike(filmId, userId, true);
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        return writeLike(filmId, userId, false);
+    }
+
+    @Override
+    public Map<Integer, Set<Integer>> getLikedFilmsByUsers() {
+        Map<Integer, Set<Integer>> likes = new HashMap<>();
+        for (FilmRow row : films.snapshot(rows -> rows)) {
+            row.likes().stream().forEach(userId ->
+                    likes.computeIfAbsent(userId, k -> new HashSet<>()).add(row.film().getId()));
+        }
+        return likes;
+    }
+
+    /**
+     * Применяет пакет операций над лайками в базе одной транзакцией, затем в памяти.
+     * Пакет выполняется под блокировками всех затронутых фильмов, а в памяти применяется
+     * целиком до того, как его увидит чтение списка фильмов.
+     *
+     * @param operations операции над лайками существующих фильмов и пользователей
+     * @return для каждой операции — {@code true}, если она изменила данные
+     */
+    @Override
+    public boolean[] applyLikeOperations(List<LikeOperation> operations) {
+        List<Integer> filmIds = operations.stream().map(LikeOperation::filmId).toList();
+        return films.write(filmIds, () -> {
+            boolean[] changed = filmDbStorage.applyLikeOperations(operations);
+            films.apply(() -> {
+                for (int i = 0; i < operations.size(); i++) {
+                    LikeOperation op = operations.get(i);
+                    if (changed[i]) {
+                        films.update(op.filmId(), row -> row.withLike(op.userId(), op.like()));
+                    }
+                }
+            });
+            return changed;
+        });
+    }
+
+    @Override
+    public Set<Integer> getExistingFilmIds(Collection<Integer> ids) {
+        return ids.stream()
+                .filter(films::contains)
+                .collect(Collectors.toSet());
+    }
+
+    private boolean writeLike(int filmId, int userId, boolean like) {
+        return films.write(filmId, () -> {
+            boolean changed = like
+                    ? filmDbStorage.addLike(filmId, userId)
+                    : filmDbStorage.removeLike(filmId, userId);
+            if (changed) {
+                films.update(filmId, row -> row.withLike(userId, like));
+            }
+            return changed;
+        });
+    }
+
+    /**
+     * Строка фильма: собственная копия данных без лайков и ID лайкнувших пользователей.
+     * Строка не изменяется, изменение фильма создаёт новую строку.
+     */
+    private record FilmRow(Film film, SortedIntSet likes) {
+
+        static FilmRow of(Film source) {
+            return new FilmRow(copy(source, source.getGenres()), SortedIntSet.of(source.getLikes()));
+        }
+
+        FilmRow withGenres(List<Genre> genres) {
+            return new FilmRow(copy(film, genres), likes);
+        }
+
+        FilmRow withLike(int userId, boolean like) {
+            return new FilmRow(film, like ? likes.with(userId) : likes.without(userId));
+        }
+
+        Film toFilm() {
+            Film result = copy(film, film.getGenres());
+            result.setLikes(likes.toSet());
+            return result;
+        }
+
+        private static Film copy(Film source, List<Genre> genres) {
+            Film copy = new Film();
+            copy.setId(source.getId());
+            copy.setName(source.getName());
+            copy.setDescription(source.getDescription());
+            copy.setDuration(source.getDuration());
+            copy.setReleaseDate(source.getReleaseDate());
+            copy.setMpa(source.getMpa());
+            copy.setGenres(new ArrayList<>(genres));
+            return copy;
+        }
+    }
+}
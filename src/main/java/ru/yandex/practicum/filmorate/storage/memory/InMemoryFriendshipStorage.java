@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.storage.friendship.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.friendship.FriendshipStorage;
+
+/**
+ * In-memory хранилище дружбы для профиля {@code in-memory}.
+ * <p>
+ * Дружба хранится в строках пользователей {@link InMemoryUserStorage}; запись выполняется
+ * в {@link FriendDbStorage} и применяется в памяти под той же блокировкой пользователя,
+ * что и изменение его данных. Отсутствие пользователя, как и в базе, проявляется
+ * нарушением внешнего ключа.
+ */
+@Repository
+@Primary
+@Profile("in-memory")
+@RequiredArgsConstructor
+public class InMemoryFriendshipStorage implements FriendshipStorage {
+    private final FriendDbStorage friendDbStorage;
+    private final InMemoryUserStorage userStorage;
+
+    @Override
+    public boolean addFriend(int userId, int friendId) {
+        return userStorage.writeFriendship(userId, friendId, true,
+                () -> friendDbStorage.addFriend(userId, friendId));
+    }
+
+    @Override
+    public boolean removeFriend(int userId, int friendId) {
+        return userStorage.writeFriendship(userId, friendId, false,
+                () -> friendDbStorage.removeFriend(userId, friendId));
+    }
+
+    @Override
+    public boolean areFriends(int userId, int friendId) {
+        return userStorage.hasFriend(userId, friendId);
+    }
+}
@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Таблица строк по целочисленному ID для in-memory хранилищ.
+ * <p>
+ * Строки лежат в {@link ConcurrentSkipListMap} и неизменяемы: изменение заменяет строку целиком,
+ * поэтому чтение по ID не берёт блокировок и всегда видит согласованную строку, а ключи упорядочены
+ * для постраничного обхода.
+ * <p>
+ * Запись сначала выполняется в базе, затем применяется к таблице. Чтобы две записи одной строки
+ * не применились в памяти в другом порядке, чем в базе, обе фазы выполняются под блокировкой
+ * полосы (lock striping): строки распределены по фиксированному числу блокировок по ID.
+ * Запись нескольких строк берёт их полосы по возрастанию номера, что исключает взаимную блокировку.
+ * <p>
+ * Чтения целых списков идут через {@link #snapshot}: на время копирования они ждут завершения
+ * уже начатых изменений в памяти и не дают начать новые, поэтому видят пакет изменений
+ * либо целиком, либо никак. Изменения друг друга не ждут — они берут блокировку чтения,
+ * а снимок — блокировку записи; обращения к базе под ней не выполняются.
+ *
+ * @param <R> тип строки
+ */
+final class InMemoryTable<R> {
+    private static final int STRIPES = 64;
+
+    private final ConcurrentSkipListMap<Integer, R> rows = new ConcurrentSkipListMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+    InMemoryTable() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    R get(int id) {
+        return rows.get(id);
+    }
+
+    boolean contains(int id) {
+        return rows.containsKey(id);
+    }
+
+    /**
+     * Возвращает страницу ID строк в порядке возрастания.
+     *
+     * @param afterId ID последней строки предыдущей страницы
+     * @param limit   максимальный размер страницы
+     * @return ID строк
+     */
+    List<Integer> ids(int afterId, int limit) {
+        return rows.tailMap(afterId, false).keySet().stream()
+                .limit(Math.max(limit, 0))
+                .toList();
+    }
+
+    /**
+     * Читает все строки как согласованный снимок в порядке ID.
+     *
+     * @param reader обработка снимка; выполняется под блокировкой и не должна обращаться к базе
+     * @param <T>    тип результата
+     * @return результат обработки
+     */
+    <T> T snapshot(Function<List<R>, T> reader) {
+        Lock lock = snapshotLock.writeLock();
+        lock.lock();
+        try {
+            return reader.apply(new ArrayList<>(rows.values()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Выполняет запись строки под блокировкой её полосы.
+     *
+     * @param id     ID строки
+     * @param action запись в базу с последующим изменением таблицы
+     * @param <T>    тип результата
+     * @return результат записи
+     */
+    <T> T write(int id, Supplier<T> action) {
+        ReentrantLock stripe = stripes[stripe(id)];
+        stripe.lock();
+        try {
+            return action.get();
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Выполняет запись строки без результата под блокировкой её полосы.
+     *
+     * @param id     ID строки
+     * @param action запись в базу с последующим изменением таблицы
+     */
+    void write(int id, Runnable action) {
+        write(id, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Выполняет запись нескольких строк под блокировками их полос.
+     *
+     * @param ids    ID строк
+     * @param action запись в базу с последующим изменением таблицы
+     * @param <T>    тип результата
+     * @return результат записи
+     */
+    <T> T write(Collection<Integer> ids, Supplier<T> action) {
+        int[] locked = ids.stream()
+                .mapToInt(InMemoryTable::stripe)
+                .sorted()
+                .distinct()
+                .toArray();
+        int acquired = 0;
+        try {
+            for (int index : locked) {
+                stripes[index].lock();
+                acquired++;
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                stripes[locked[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Применяет изменения таблицы так, что снимок увидит их целиком или не увидит вовсе.
+     *
+     * @param changes изменения строк через {@link #put} и {@link #update}
+     */
+    void apply(Runnable changes) {
+        Lock lock = snapshotLock.readLock();
+        lock.lock();
+        try {
+            changes.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(int id, R row) {
+        apply(() -> rows.put(id, row));
+    }
+
+    /**
+     * Заменяет существующую строку; отсутствующая строка не создаётся.
+     *
+     * @param id     ID строки
+     * @param change новое значение строки по текущему
+     */
+    void update(int id, UnaryOperator<R> change) {
+        apply(() -> rows.computeIfPresent(id, (key, row) -> change.apply(row)));
+    }
+
+    /**
+     * Заменяет содержимое таблицы при загрузке из базы.
+     *
+     * @param loaded строки
+     * @param idOf   ID строки
+     */
+    void load(Collection<R> loaded, Function<R, Integer> idOf) {
+        apply(() -> {
+            rows.clear();
+            loaded.forEach(row -> rows.put(idOf.apply(row), row));
+        });
+    }
+
+    private static int stripe(int id) {
+        return Math.floorMod(id, STRIPES);
+    }
+}
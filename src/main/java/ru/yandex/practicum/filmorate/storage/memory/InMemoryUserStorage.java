@@ -0,0 +1,214 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory хранилище пользователей для профиля {@code in-memory}.
+ * <p>
+ * Пользователи и их друзья читаются из памяти; база остаётся источником долговечности:
+ * при старте хранилище загружает из неё всех пользователей, а каждая запись сначала выполняется
+ * в {@code userDbStorage} и только после успеха применяется в памяти. ID, проверки уникальности
+ * и внешних ключей остаются за базой. Друзья пользователя хранятся отсортированным массивом ID.
+ * <p>
+ * В этом профиле база должна изменяться только через приложение: записи в обход хранилища
+ * не попадут в память до перезапуска.
+ */
+@Repository("inMemoryUserStorage")
+@Primary
+@Profile("in-memory")
+public class InMemoryUserStorage implements UserStorage {
+    private final UserStorage userDbStorage;
+    private final InMemoryTable<UserRow> users = new InMemoryTable<>();
+
+    public InMemoryUserStorage(@Qualifier("userDbStorage") UserStorage userDbStorage) {
+        this.userDbStorage = userDbStorage;
+    }
+
+    /**
+     * Загружает всех пользователей с друзьями из базы при старте приложения.
+     */
+    @PostConstruct
+    public void load() {
+        users.load(userDbStorage.getAllUsers().stream().map(UserRow::of).toList(), row -> row.user().getId());
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        return users.snapshot(rows -> rows).stream()
+                .map(UserRow::toUser)
+                .toList();
+    }
+
+    @Override
+    public User addUser(User user) {
+        User added = userDbStorage.addUser(user);
+        users.put(added.getId(), UserRow.of(added));
+        return added;
+    }
+
+    @Override
+    public User updateUser(User user) {
+        return users.write(user.getId(), () -> {
+            UserRow row = UserRow.of(userDbStorage.updateUser(user));
+            users.put(user.getId(), row);
+            return row.toUser();
+        });
+    }
+
+    @Override
+    public Optional<User> getUser(int userId) {
+        return Optional.ofNullable(users.get(userId)).map(UserRow::toUser);
+    }
+
+    @Override
+    public List<User> getUsers(Collection<Integer> ids) {
+        return ids.stream()
+                .distinct()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(UserRow::toUser)
+                .toList();
+    }
+
+    @Override
+    public boolean isUserPresent(Integer id) {
+        return id != null && users.contains(id);
+    }
+
+    @Override
+    public List<String> getFriendsEmails(int id) {
+        UserRow row = users.get(id);
+        return row == null ? List.of() : emails(row.friends());
+    }
+
+    @Override
+    public Map<Integer, List<String>> getFriendsEmailsByUsers(Collection<Integer> ids) {
+        Map<Integer, List<String>> emails = new HashMap<>();
+        for (Integer id : Set.copyOf(ids)) {
+            UserRow row = users.get(id);
+            if (row != null) {
+                List<String> friendsEmails = emails(row.friends());
+                if (!friendsEmails.isEmpty()) {
+                    emails.put(id, friendsEmails);
+                }
+            }
+        }
+        return emails;
+    }
+
+    @Override
+    public List<Integer> getFriendIds(int userId, int afterFriendId, int limit) {
+        UserRow row = users.get(userId);
+        return row == null ? List.of() : row.friends().after(afterFriendId, limit);
+    }
+
+    @Override
+    public List<Integer> getUserIds(int afterId, int limit) {
+        return users.ids(afterId, limit);
+    }
+
+    @Override
+    public Set<Integer> getExistingUserIds(Collection<Integer> ids) {
+        return ids.stream()
+                .filter(users::contains)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Выполняет запись дружбы в базу и при успехе применяет её к друзьям пользователя в памяти.
+     *
+     * @param userId   ID пользователя
+     * @param friendId ID друга
+     * @param add      {@code true} — добавить друга, {@code false} — удалить
+     * @param dbWrite  запись в базу; возвращает, изменила ли она данные
+     * @return результат записи в базу
+     */
+    boolean writeFriendship(int userId, int friendId, boolean add, BooleanSupplier dbWrite) {
+        return users.write(userId, () -> {
+            if (!dbWrite.getAsBoolean()) {
+                return false;
+            }
+            users.update(userId, row -> row.withFriend(friendId, add));
+            return true;
+        });
+    }
+
+    boolean hasFriend(int userId, int friendId) {
+        UserRow row = users.get(userId);
+        return row != null && row.friends().contains(friendId);
+    }
+
+    /**
+     * Возвращает имена существующих пользователей из списка ID; имя может быть {@code null}.
+     *
+     * @param userIds ID пользователей
+     * @return имена в порядке ID
+     */
+    List<String> getNames(IntStream userIds) {
+        List<String> names = new ArrayList<>();
+        userIds.forEach(id -> {
+            UserRow row = users.get(id);
+            if (row != null) {
+                names.add(row.user().getName());
+            }
+        });
+        return names;
+    }
+
+    private List<String> emails(SortedIntSet friends) {
+        return friends.stream()
+                .mapToObj(users::get)
+                .filter(Objects::nonNull)
+                .map(row -> row.user().getEmail())
+                .toList();
+    }
+
+    /**
+     * Строка пользователя: собственная копия данных без друзей и ID друзей.
+     * Строка не изменяется, изменение пользователя создаёт новую строку.
+     */
+    private record UserRow(User user, SortedIntSet friends) {
+
+        static UserRow of(User source) {
+            return new UserRow(copy(source), SortedIntSet.of(source.getFriends()));
+        }
+
+        UserRow withFriend(int friendId, boolean add) {
+            return new UserRow(user, add ? friends.with(friendId) : friends.without(friendId));
+        }
+
+        User toUser() {
+            User result = copy(user);
+            result.setFriends(friends.toSet());
+            return result;
+        }
+
+        private static User copy(User source) {
+            User copy = new User();
+            copy.setId(source.getId());
+            copy.setEmail(source.getEmail());
+            copy.setLogin(source.getLogin());
+            copy.setName(source.getName());
+            copy.setBirthday(source.getBirthday());
+            return copy;
+        }
+    }
+}
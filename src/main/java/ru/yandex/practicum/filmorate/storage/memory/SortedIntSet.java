@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Неизменяемое отсортированное множество int на массиве примитивов — рёбра графа лайков и дружбы.
+ * <p>
+ * Изменение создаёт новое множество (copy-on-write), поэтому множество можно читать без блокировок
+ * и отдавать наружу вместе со строкой таблицы. Поиск выполняется двоичным поиском,
+ * а страница элементов после заданного значения выбирается без перебора предыдущих.
+ */
+final class SortedIntSet {
+    static final SortedIntSet EMPTY = new SortedIntSet(new int[0]);
+
+    private final int[] values;
+
+    private SortedIntSet(int[] values) {
+        this.values = values;
+    }
+
+    static SortedIntSet of(Collection<Integer> values) {
+        if (values.isEmpty()) {
+            return EMPTY;
+        }
+        return new SortedIntSet(values.stream()
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .distinct()
+                .toArray());
+    }
+
+    boolean contains(int value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    /**
+     * @return множество с добавленным значением или это же множество, если значение уже есть
+     */
+    SortedIntSet with(int value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index >= 0) {
+            return this;
+        }
+        int insertAt = -index - 1;
+        int[] copy = new int[values.length + 1];
+        System.arraycopy(values, 0, copy, 0, insertAt);
+        copy[insertAt] = value;
+        System.arraycopy(values, insertAt, copy, insertAt + 1, values.length - insertAt);
+        return new SortedIntSet(copy);
+    }
+
+    /**
+     * @return множество без значения или это же множество, если значения нет
+     */
+    SortedIntSet without(int value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index < 0) {
+            return this;
+        }
+        if (values.length == 1) {
+            return EMPTY;
+        }
+        int[] copy = new int[values.length - 1];
+        System.arraycopy(values, 0, copy, 0, index);
+        System.arraycopy(values, index + 1, copy, index, values.length - index - 1);
+        return new SortedIntSet(copy);
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    /**
+     * Возвращает страницу значений больше заданного в порядке возрастания.
+     *
+     * @param after значение, после которого начинается страница
+     * @param limit максимальный размер страницы
+     * @return значения страницы
+     */
+    List<Integer> after(int after, int limit) {
+        int index = Arrays.binarySearch(values, after);
+        int from = index >= 0 ? index + 1 : -index - 1;
+        int to = (int) Math.min(values.length, (long) from + Math.max(limit, 0));
+        List<Integer> page = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            page.add(values[i]);
+        }
+        return page;
+    }
+
+    IntStream stream() {
+        return Arrays.stream(values);
+    }
+
+    Set<Integer> toSet() {
+        Set<Integer> set = new HashSet<>(values.length * 2);
+        for (int value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+}
@@ -8,11 +8,19 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.RequestIdentityMap;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RequiredArgsConstructor
 @Repository("userDbStorage")
@@ -40,6 +48,7 @@ public class UserDbStorage implements UserStorage {
             LEFT JOIN friendship AS f on u.id = f.user_id
             WHERE u.id = ?
             """;
+    private static final String GET_USERS_WITH_FRIENDS_BY_IDS = GET_ALL_USERS_WITH_FRIENDS + "WHERE u.id IN (%s)";
     private static final String INSERT_USER_QUERY = "INSERT INTO users (email, login, name, birthday) " +
             "VALUES(?, ?, ?, ?)";
     private static final String UPDATE_USER_QUERY = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? " +
@@ -52,10 +61,28 @@ public class UserDbStorage implements UserStorage {
             JOIN users AS fu ON f.friend_id = fu.id
             WHERE u.id = ?;
             """;
+    private static final String GET_FRIENDS_EMAILS_BY_USER_IDS = """
+            SELECT
+            f.user_id,
+            fu.email
+            FROM friendship AS f
+            JOIN users AS fu ON f.friend_id = fu.id
+            WHERE f.user_id IN (%s)
+            """;
+    private static final String GET_FRIEND_IDS_PAGE = """
+            SELECT friend_id
+            FROM friendship
+            WHERE user_id = ? AND friend_id > ?
+            ORDER BY friend_id
+            LIMIT ?
+            """;
+    private static final String GET_USER_IDS_PAGE = "SELECT id FROM users WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String GET_EXISTING_USER_IDS = "SELECT id FROM users WHERE id IN (%s)";
 
     private final JdbcTemplate jdbc;
     private final ResultSetExtractor<List<User>> userResultSetExtractor;
     private final RowMapper<String> emailRowMapper;
+    private final RequestIdentityMap identityMap;
 
     @Override
     public List<User> getAllUsers() {
@@ -64,6 +91,7 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public User addUser(User user) {
+        identityMap.clear();
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
         jdbc.update(con -> {
             PreparedStatement ps = con.prepareStatement(INSERT_USER_QUERY, Statement.RETURN_GENERATED_KEYS);
@@ -85,12 +113,29 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public Optional<User> getUser(int userId) {
-        List<User> list = jdbc.query(GET_USER_WITH_FRIENDS, userResultSetExtractor, userId);
-        if (list == null || list.isEmpty()) {
-            return Optional.empty();
-        } else {
-            return Optional.of(list.get(0));
+        return identityMap.load(User.class, userId, () -> {
+            List<User> list = jdbc.query(GET_USER_WITH_FRIENDS, userResultSetExtractor, userId);
+            if (list == null || list.isEmpty()) {
+                return Optional.empty();
+            } else {
+                return Optional.of(list.get(0));
+            }
+        });
+    }
+
+    /**
+     * Загружает пользователей из списка ID вместе с ID друзей одним запросом.
+     *
+     * @param ids идентификаторы пользователей
+     * @return найденные пользователи в произвольном порядке; отсутствующие ID пропускаются
+     */
+    @Override
+    public List<User> getUsers(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        return jdbc.query(GET_USERS_WITH_FRIENDS_BY_IDS.formatted(placeholders(ids.size())),
+                userResultSetExtractor, ids.toArray());
     }
 
     @Override
@@ -103,6 +148,7 @@ public class UserDbStorage implements UserStorage {
         Object[] params = {
                 user.getEmail(), user.getLogin(), user.getName(), user.getBirthday(), user.getId()
         };
+        identityMap.clear();
         int rowsUpdated = jdbc.update(UPDATE_USER_QUERY, params);
         if (rowsUpdated == 0) {
             throw new InternalServerException("Не удалось обновить пользователя");
@@ -115,4 +161,70 @@ public class UserDbStorage implements UserStorage {
     public List<String> getFriendsEmails(int id) {
         return jdbc.query(GET_FRIENDS_EMAILS, emailRowMapper, id);
     }
+
+    /**
+     * Возвращает email друзей каждого пользователя из списка одним запросом.
+     *
+     * @param ids идентификаторы пользователей
+     * @return отображение ID пользователя на email его друзей; пользователи без друзей в нём отсутствуют
+     */
+    @Override
+    public Map<Integer, List<String>> getFriendsEmailsByUsers(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return jdbc.query(GET_FRIENDS_EMAILS_BY_USER_IDS.formatted(placeholders(ids.size())), rs -> {
+            Map<Integer, List<String>> emails = new HashMap<>();
+            while (rs.next()) {
+                emails.computeIfAbsent(rs.getInt("user_id"), k -> new ArrayList<>()).add(rs.getString("email"));
+            }
+            return emails;
+        }, ids.toArray());
+    }
+
+    /**
+     * Возвращает страницу ID друзей пользователя в порядке возрастания ID.
+     * Страница выбирается по первичному ключу friendship (user_id, friend_id), без OFFSET.
+     *
+     * @param userId        ID пользователя
+     * @param afterFriendId ID последнего друга предыдущей страницы (0 для первой страницы)
+     * @param limit         максимальный размер страницы
+     * @return ID друзей
+     */
+    @Override
+    public List<Integer> getFriendIds(int userId, int afterFriendId, int limit) {
+        return jdbc.queryForList(GET_FRIEND_IDS_PAGE, Integer.class, userId, afterFriendId, limit);
+    }
+
+    /**
+     * Возвращает страницу ID пользователей в порядке возрастания.
+     * Страница выбирается по первичному ключу, без OFFSET.
+     *
+     * @param afterId ID последнего пользователя предыдущей страницы (0 для первой страницы)
+     * @param limit   максимальный размер страницы
+     * @return ID пользователей
+     */
+    @Override
+    public List<Integer> getUserIds(int afterId, int limit) {
+        return jdbc.queryForList(GET_USER_IDS_PAGE, Integer.class, afterId, limit);
+    }
+
+    /**
+     * Возвращает те ID из списка, для которых существует пользователь, одним запросом.
+     *
+     * @param ids идентификаторы пользователей
+     * @return множество существующих ID
+     */
+    @Override
+    public Set<Integer> getExistingUserIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbc.queryForList(GET_EXISTING_USER_IDS.formatted(placeholders(ids.size())),
+                Integer.class, ids.toArray()));
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
 }
@@ -2,8 +2,11 @@ package ru.yandex.practicum.filmorate.storage.user;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserStorage {
 
@@ -15,7 +18,17 @@ public interface UserStorage {
 
     Optional<User> getUser(int userId);
 
+    List<User> getUsers(Collection<Integer> ids);
+
     boolean isUserPresent(Integer id);
 
     List<String> getFriendsEmails(int id);
+
+    Map<Integer, List<String>> getFriendsEmailsByUsers(Collection<Integer> ids);
+
+    List<Integer> getFriendIds(int userId, int afterFriendId, int limit);
+
+    List<Integer> getUserIds(int afterId, int limit);
+
+    Set<Integer> getExistingUserIds(Collection<Integer> ids);
 }
@@ -18,10 +18,14 @@ CREATE TABLE IF NOT EXISTS genres (
 );
 
 CREATE TABLE IF NOT EXISTS film_genre (
-	film_id integer REFERENCES films,
-	genre_id integer REFERENCES genres
+	film_id integer CONSTRAINT film_genre_film_fk REFERENCES films,
+	genre_id integer CONSTRAINT film_genre_genre_fk REFERENCES genres
 );
 
+ALTER TABLE film_genre ADD CONSTRAINT IF NOT EXISTS film_genre_film_fk FOREIGN KEY (film_id) REFERENCES films;
+
+ALTER TABLE film_genre ADD CONSTRAINT IF NOT EXISTS film_genre_genre_fk FOREIGN KEY (genre_id) REFERENCES genres;
+
 CREATE TABLE IF NOT EXISTS users (
 	id integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
 	email varchar(50) UNIQUE NOT NULL,
@@ -31,11 +35,54 @@ CREATE TABLE IF NOT EXISTS users (
 );
 
 CREATE TABLE IF NOT EXISTS friendship (
-	user_id integer REFERENCES users,
-	friend_id integer REFERENCES users
+	user_id integer NOT NULL CONSTRAINT friendship_user_fk REFERENCES users,
+	friend_id integer NOT NULL CONSTRAINT friendship_friend_fk REFERENCES users,
+	CONSTRAINT friendship_pk PRIMARY KEY (user_id, friend_id)
 );
 
+DELETE FROM friendship AS f
+WHERE NOT EXISTS (
+	SELECT 1 FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS
+	WHERE TABLE_NAME = 'FRIENDSHIP' AND CONSTRAINT_NAME = 'FRIENDSHIP_PK'
+) AND (f.user_id IS NULL OR f.friend_id IS NULL OR EXISTS (
+	SELECT 1 FROM friendship AS d
+	WHERE d.user_id = f.user_id AND d.friend_id = f.friend_id AND d._ROWID_ < f._ROWID_
+));
+
+ALTER TABLE friendship ALTER COLUMN user_id SET NOT NULL;
+
+ALTER TABLE friendship ALTER COLUMN friend_id SET NOT NULL;
+
+ALTER TABLE friendship ADD CONSTRAINT IF NOT EXISTS friendship_pk PRIMARY KEY (user_id, friend_id);
+
+ALTER TABLE friendship ADD CONSTRAINT IF NOT EXISTS friendship_user_fk FOREIGN KEY (user_id) REFERENCES users;
+
+ALTER TABLE friendship ADD CONSTRAINT IF NOT EXISTS friendship_friend_fk FOREIGN KEY (friend_id) REFERENCES users;
+
 CREATE TABLE IF NOT EXISTS film_likes (
-	user_id integer REFERENCES users,
-	film_id integer REFERENCES films
-);
\ No newline at end of file
+	user_id integer CONSTRAINT film_likes_user_fk REFERENCES users,
+	film_id integer CONSTRAINT film_likes_film_fk REFERENCES films,
+	created_at timestamp DEFAULT CURRENT_TIMESTAMP,
+	CONSTRAINT film_likes_user_film_uq UNIQUE (user_id, film_id)
+);
+
+ALTER TABLE film_likes ADD COLUMN IF NOT EXISTS created_at timestamp;
+
+ALTER TABLE film_likes ALTER COLUMN created_at SET DEFAULT CURRENT_TIMESTAMP;
+
+DELETE FROM film_likes AS l
+WHERE NOT EXISTS (
+	SELECT 1 FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS
+	WHERE TABLE_NAME = 'FILM_LIKES' AND CONSTRAINT_NAME = 'FILM_LIKES_USER_FILM_UQ'
+) AND EXISTS (
+	SELECT 1 FROM film_likes AS d
+	WHERE d.user_id = l.user_id AND d.film_id = l.film_id AND d._ROWID_ < l._ROWID_
+);
+
+ALTER TABLE film_likes ADD CONSTRAINT IF NOT EXISTS film_likes_user_film_uq UNIQUE (user_id, film_id);
+
+ALTER TABLE film_likes ADD CONSTRAINT IF NOT EXISTS film_likes_user_fk FOREIGN KEY (user_id) REFERENCES users;
+
+ALTER TABLE film_likes ADD CONSTRAINT IF NOT EXISTS film_likes_film_fk FOREIGN KEY (film_id) REFERENCES films;
+
+CREATE INDEX IF NOT EXISTS film_likes_film_user_idx ON film_likes (film_id, user_id);
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchLoaderTest {
+
+    @Test
+    void testPendingKeysAreLoadedInOneBatchOnFirstGet() {
+        List<List<Integer>> batches = new ArrayList<>();
+        BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> load(keys, batches), 100);
+
+        Supplier<String> first = loader.load(1);
+        Supplier<String> second = loader.load(2);
+        Supplier<String> missing = loader.load(-1);
+        assertTrue(batches.isEmpty());
+
+        assertEquals("film2", second.get());
+        assertEquals("film1", first.get());
+        assertNull(missing.get());
+        assertEquals(List.of(List.of(1, 2, -1)), batches);
+
+        assertEquals("film1", loader.load(1).get());
+        assertEquals(1, loader.getBatchCount());
+    }
+
+    @Test
+    void testLoadAllKeepsOrderAndSplitsLargeBatches() {
+        List<List<Integer>> batches = new ArrayList<>();
+        BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> load(keys, batches), 2);
+
+        assertEquals(Arrays.asList("film3", "film1", null, "film3", "film2"), loader.loadAll(List.of(3, 1, -5, 3, 2)));
+        assertEquals(List.of(List.of(3, 1), List.of(-5, 2)), batches);
+    }
+
+    private static Map<Integer, String> load(Collection<Integer> keys, List<List<Integer>> batches) {
+        batches.add(List.copyOf(keys));
+        return keys.stream()
+                .filter(key -> key > 0)
+                .collect(Collectors.toMap(key -> key, key -> "film" + key));
+    }
+}
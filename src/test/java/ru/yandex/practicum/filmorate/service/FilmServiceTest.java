@@ -0,0 +1,272 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dto.film.FilmDto;
+import ru.yandex.practicum.filmorate.dto.film.LikeBatchItemDto;
+import ru.yandex.practicum.filmorate.dto.film.LikeBatchResultDto;
+import ru.yandex.practicum.filmorate.dto.film.PostFilmRequestDto;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmCoLikeIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmFacetIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmIndexLoader;
+import ru.yandex.practicum.filmorate.storage.index.UserFilmLikesMatrix;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"spring.config.location=classpath:application-test.properties",
+        "filmorate.popular-snapshot.max-staleness-ms=60000"})
+class FilmServiceTest {
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+
+    @Autowired
+    private FilmCoLikeIndex coLikeIndex;
+
+    @Autowired
+    private UserFilmLikesMatrix likesMatrix;
+
+    @Autowired
+    private FilmIndexLoader indexLoader;
+
+    @Autowired
+    private FilmFacetIndex facetIndex;
+
+    @Autowired
+    private PopularFilmsSnapshot popularSnapshot;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM film_genre");
+        jdbcTemplate.update("DELETE FROM film_likes");
+        jdbcTemplate.update("DELETE FROM films");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES ('test@mail.com','login1','User1','2000-01-01')");
+        likesMatrix.rebuild();
+        filmDbStorage.rebuildLikeIndexes();
+        indexLoader.load();
+        popularSnapshot.markChanged();
+        popularSnapshot.refresh();
+    }
+
+    @Test
+    void testLikesUpdateCoLikeIndex() {
+        int film1 = addFilm("Film1", Mpa.G);
+        int film2 = addFilm("Film2", Mpa.G);
+        Integer userId = userId("login1");
+
+        filmService.addLike(film1, userId);
+        filmService.addLike(film2, userId);
+        assertEquals(List.of(film2), coLikeIndex.getSimilarFilms(film1, 10));
+
+        filmService.removeLike(film2, userId);
+        assertTrue(coLikeIndex.getSimilarFilms(film1, 10).isEmpty());
+    }
+
+    @Test
+    void testAddLikeForMissingFilmOrUser() {
+        int filmId = addFilm("Lonely", Mpa.G);
+        Integer userId = userId("login1");
+
+        NotFoundException missingFilm = assertThrows(NotFoundException.class,
+                () -> filmService.addLike(filmId + 1000, userId));
+        assertTrue(missingFilm.getMessage().startsWith("Фильм"));
+        NotFoundException missingUser = assertThrows(NotFoundException.class,
+                () -> filmService.addLike(filmId, userId + 1000));
+        assertTrue(missingUser.getMessage().startsWith("Пользователь"));
+    }
+
+    @Test
+    void testApplyLikeBatch() {
+        int filmId = addFilm("Batch", Mpa.G);
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES ('second@mail.com','login2','User2','2000-01-01')");
+        Integer first = userId("login1");
+        Integer second = userId("login2");
+
+        List<LikeBatchResultDto> results = filmService.applyLikeBatch(List.of(
+                batchItem(filmId, first, "like"),
+                batchItem(filmId, second, "like"),
+                batchItem(filmId, first, "like"),
+                batchItem(filmId, second, "unlike"),
+                batchItem(filmId, second, "unlike"),
+                batchItem(filmId + 1000, first, "like"),
+                batchItem(filmId, second + 1000, "like"),
+                batchItem(filmId, first, "dislike")));
+
+        assertEquals(List.of(
+                LikeBatchResultDto.Status.LIKED,
+                LikeBatchResultDto.Status.LIKED,
+                LikeBatchResultDto.Status.ALREADY_LIKED,
+                LikeBatchResultDto.Status.UNLIKED,
+                LikeBatchResultDto.Status.NOT_LIKED,
+                LikeBatchResultDto.Status.FILM_NOT_FOUND,
+                LikeBatchResultDto.Status.USER_NOT_FOUND,
+                LikeBatchResultDto.Status.INVALID), results.stream().map(LikeBatchResultDto::getStatus).toList());
+        assertEquals(List.of(first), jdbcTemplate.queryForList(
+                "SELECT user_id FROM film_likes WHERE film_id = ?", Integer.class, filmId));
+        assertEquals(1, likesMatrix.getLikesCount(filmId));
+    }
+
+    @Test
+    void testGetFilmsByIdsPreservesOrderAndSkipsMissing() {
+        int firstId = addFilm("First", Mpa.G, Genre.Comedy);
+        int secondId = addFilm("Second", Mpa.PG);
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES ('second@mail.com','login2','User2','2000-01-01')");
+        filmService.addLike(firstId, userId("login1"));
+        filmService.addLike(firstId, userId("login2"));
+        int missingId = secondId + 1000;
+
+        List<FilmDto> films = filmService.getFilmsByIds(List.of(secondId, missingId, firstId, secondId), null);
+
+        assertEquals(List.of(secondId, firstId), films.stream().map(FilmDto::getId).toList());
+        assertEquals(List.of(Genre.Comedy), films.get(1).getGenres());
+        assertEquals(Set.of("User1", "User2"), Set.copyOf(films.get(1).getLikes()));
+        assertEquals(Mpa.PG, films.get(0).getMpa());
+        assertTrue(films.get(0).getLikes().isEmpty());
+        assertNull(films.get(1).getLikesCount());
+
+        FilmDto projected = filmService.getFilmsByIds(List.of(firstId), List.of("name", "likesCount")).get(0);
+        assertEquals(firstId, projected.getId());
+        assertEquals("First", projected.getName());
+        assertEquals(2, projected.getLikesCount());
+        assertNull(projected.getLikes());
+        assertNull(projected.getGenres());
+        assertThrows(ValidationException.class, () -> filmService.getFilmById(firstId, List.of("budget")));
+    }
+
+    @Test
+    void testSimilarFilmsRejectNonPositiveCount() {
+        int filmId = addFilm("Counted", Mpa.G);
+
+        assertThrows(ValidationException.class, () -> filmService.getSimilarFilms(filmId, 0));
+        assertThrows(ValidationException.class, () -> filmService.getAlikeFilms(filmId, -1));
+        assertThrows(ValidationException.class, () -> filmService.getSimilarFilms(filmId + 1000, 0));
+        assertEquals(List.of(), filmService.getAlikeFilms(filmId, 1));
+    }
+
+    @Test
+    void testRecommendedFilmsAreLoadedInOrder() {
+        int shared = addFilm("Shared", Mpa.G);
+        int first = addFilm("First", Mpa.G);
+        int second = addFilm("Second", Mpa.G);
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES ('second@mail.com','login2','User2','2000-01-01')");
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES ('third@mail.com','login3','User3','2000-01-01')");
+        filmService.addLike(shared, userId("login1"));
+        filmService.addLike(shared, userId("login2"));
+        filmService.addLike(first, userId("login2"));
+        filmService.addLike(shared, userId("login3"));
+        filmService.addLike(first, userId("login3"));
+        filmService.addLike(second, userId("login3"));
+
+        List<FilmDto> recommended = recommendationService.getRecommendedFilms(userId("login1"), 10);
+
+        assertEquals(List.of(first, second), recommended.stream().map(FilmDto::getId).toList());
+        assertEquals(Set.of("User2", "User3"), Set.copyOf(recommended.get(0).getLikes()));
+        assertThrows(NotFoundException.class, () -> recommendationService.getRecommendedFilms(userId("login1") + 1000, 10));
+    }
+
+    @Test
+    void testStreamAllFilmsReturnsEveryFilm() {
+        addFilm("Stream0", Mpa.G);
+        addFilm("Stream1", Mpa.G);
+        addFilm("Stream2", Mpa.G);
+
+        try (Stream<FilmDto> films = filmService.streamAllFilms(List.of("name"))) {
+            assertEquals(List.of("Stream0", "Stream1", "Stream2"), films.map(FilmDto::getName).toList());
+        }
+    }
+
+    @Test
+    void testPopularSnapshotIsServedWithinStaleness() {
+        int filmId = addFilm("Snapshot", Mpa.G);
+        int otherId = addFilm("Other", Mpa.G);
+        Integer userId = userId("login1");
+        filmService.addLike(filmId, userId);
+
+        popularSnapshot.refresh();
+        assertEquals(0, popularSnapshot.getStats().pendingChanges());
+        assertEquals(List.of(filmId, otherId), popularSnapshot.getTop(null, 100).orElseThrow());
+        List<FilmDto> popular = filmService.getMostLikedFilms(1, null, null, null, null);
+        assertEquals(List.of(filmId), popular.stream().map(FilmDto::getId).toList());
+        assertEquals(List.of("User1"), popular.get(0).getLikes());
+
+        filmService.addLike(otherId, userId);
+        filmService.removeLike(filmId, userId);
+        assertTrue(popularSnapshot.getStats().pendingChanges() > 0);
+        popular = filmService.getMostLikedFilms(1, null, null, null, null);
+        assertEquals(List.of(filmId), popular.stream().map(FilmDto::getId).toList());
+        assertTrue(popular.get(0).getLikes().isEmpty());
+
+        popularSnapshot.refresh();
+        assertEquals(List.of(otherId), filmService.getMostLikedFilms(1, null, null, null, null).stream()
+                .map(FilmDto::getId)
+                .toList());
+    }
+
+    @Test
+    void testPopularSnapshotWithoutStalenessIsServedUntilDataChanges() {
+        int filmId = addFilm("Strict", Mpa.G);
+        PopularFilmsSnapshot strict = new PopularFilmsSnapshot(facetIndex, likesMatrix, 100, 0);
+
+        strict.refresh();
+        assertEquals(List.of(filmId), strict.getTop(null, 10).orElseThrow());
+        assertEquals(List.of(), strict.getTop(Genre.Comedy, 10).orElseThrow());
+
+        strict.markChanged();
+        assertTrue(strict.getTop(null, 10).isEmpty());
+        strict.refresh();
+        assertEquals(0, strict.getStats().pendingChanges());
+        assertTrue(strict.getTop(null, 10).isPresent());
+    }
+
+    private int addFilm(String name, Mpa mpa, Genre... genres) {
+        PostFilmRequestDto request = new PostFilmRequestDto();
+        request.setName(name);
+        request.setDescription("Desc");
+        request.setDuration(100);
+        request.setReleaseDate(LocalDate.of(2021, 1, 1));
+        PostFilmRequestDto.MpaRequest mpaRequest = new PostFilmRequestDto.MpaRequest();
+        mpaRequest.setId(mpa.getId());
+        request.setMpa(mpaRequest);
+        for (Genre genre : genres) {
+            PostFilmRequestDto.GenreRequest genreRequest = new PostFilmRequestDto.GenreRequest();
+            genreRequest.setId(genre.getId());
+            request.getGenres().add(genreRequest);
+        }
+        return filmService.addFilm(request).getId();
+    }
+
+    private Integer userId(String login) {
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = ?", Integer.class, login);
+    }
+
+    private static LikeBatchItemDto batchItem(int filmId, int userId, String op) {
+        LikeBatchItemDto item = new LikeBatchItemDto();
+        item.setFilmId(filmId);
+        item.setUserId(userId);
+        item.setOp(op);
+        return item;
+    }
+}
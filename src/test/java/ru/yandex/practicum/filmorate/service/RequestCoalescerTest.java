@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+
+    private static final int THREADS = 16;
+
+    @Test
+    void testConcurrentIdenticalCallsShareOneExecution() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(0);
+        AtomicInteger executions = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<Integer>>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> coalescer.execute("popular", List.of(10), () -> {
+                    executions.incrementAndGet();
+                    awaitCollapsed(coalescer, THREADS - 1);
+                    return List.of(1, 2, 3);
+                })));
+            }
+            for (Future<List<Integer>> result : results) {
+                assertEquals(List.of(1, 2, 3), result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, executions.get());
+        assertEquals(new RequestCoalescer.Stats(THREADS, 1, THREADS - 1, 0), coalescer.getStats());
+        coalescer.execute("popular", List.of(10), () -> List.of(4));
+        assertEquals(2, coalescer.getStats().executions());
+    }
+
+    @Test
+    void testExceptionIsSharedAndNotReused() {
+        RequestCoalescer coalescer = new RequestCoalescer(60_000);
+
+        assertThrows(NotFoundException.class, () -> coalescer.execute("film", List.of(1), () -> {
+            throw new NotFoundException("Фильм с id 1 не найден");
+        }));
+        assertEquals("found", coalescer.execute("film", List.of(1), () -> "found"));
+        assertEquals("found", coalescer.execute("film", List.of(1), () -> "recomputed"));
+        assertEquals("other", coalescer.execute("film", List.of(2), () -> "other"));
+        assertEquals(new RequestCoalescer.Stats(4, 3, 0, 1), coalescer.getStats());
+    }
+
+    private static void awaitCollapsed(RequestCoalescer coalescer, long expected) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (coalescer.getStats().collapsed() < expected && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubtaskScopeTest {
+
+    @Test
+    void testSubtasksRunConcurrently() {
+        CountDownLatch started = new CountDownLatch(3);
+        try (SubtaskScope scope = new SubtaskScope()) {
+            CompletableFuture<Integer> first = scope.fork(() -> awaitOthers(started, 1));
+            CompletableFuture<Integer> second = scope.fork(() -> awaitOthers(started, 2));
+            CompletableFuture<Integer> third = scope.fork(() -> awaitOthers(started, 3));
+            scope.join();
+
+            assertEquals(6, first.join() + second.join() + third.join());
+        }
+    }
+
+    @Test
+    void testFirstFailureIsThrownWithoutWaitingForSlowSubtasks() {
+        CountDownLatch release = new CountDownLatch(1);
+        long start = System.nanoTime();
+        try (SubtaskScope scope = new SubtaskScope()) {
+            CompletableFuture<String> slow = scope.fork(() -> {
+                await(release);
+                return "slow";
+            });
+            scope.fork(() -> {
+                throw new NotFoundException("Фильм с id 1 не найден");
+            });
+
+            assertThrows(NotFoundException.class, scope::join);
+            assertTrue(slow.isCancelled());
+        } finally {
+            release.countDown();
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+    }
+
+    private static int awaitOthers(CountDownLatch started, int value) {
+        started.countDown();
+        await(started);
+        return value;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dto.user.UserDto;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDtoCacheTest {
+
+    @Test
+    void testEmailChangeInvalidatesOnlyUsersListingThatFriend() {
+        UserDtoCache cache = new UserDtoCache(100);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1, () -> entry(1, Set.of(3), loads));
+        cache.get(2, () -> entry(2, Set.of(4), loads));
+        cache.get(3, () -> entry(3, Set.of(), loads));
+
+        cache.invalidateWithFollowers(3);
+
+        assertEquals(1, cache.getStats().size());
+        cache.get(2, () -> entry(2, Set.of(4), loads));
+        assertEquals(3, loads.get());
+        cache.get(1, () -> entry(1, Set.of(3), loads));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void testInvalidationDuringLoadIsNotCached() {
+        UserDtoCache cache = new UserDtoCache(100);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1, () -> {
+            cache.invalidate(1);
+            return entry(1, Set.of(), loads);
+        });
+        cache.get(1, () -> entry(1, Set.of(), loads));
+        cache.get(1, () -> entry(1, Set.of(), loads));
+
+        assertEquals(2, loads.get());
+        assertEquals(new UserDtoCache.Stats(1, 1, 2), cache.getStats());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        UserDtoCache cache = new UserDtoCache(2);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1, () -> entry(1, Set.of(5), loads));
+        cache.get(2, () -> entry(2, Set.of(), loads));
+        cache.get(1, () -> entry(1, Set.of(5), loads));
+        cache.get(3, () -> entry(3, Set.of(), loads));
+
+        cache.get(1, () -> entry(1, Set.of(5), loads));
+        assertEquals(3, loads.get());
+        cache.get(2, () -> entry(2, Set.of(), loads));
+        assertEquals(4, loads.get());
+    }
+
+    private static UserDtoCache.Entry entry(int id, Set<Integer> friendIds, AtomicInteger loads) {
+        loads.incrementAndGet();
+        UserDto user = new UserDto();
+        user.setId(id);
+        return new UserDtoCache.Entry(user, friendIds);
+    }
+}
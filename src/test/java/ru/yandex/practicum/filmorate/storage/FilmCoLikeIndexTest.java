@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.index.FilmCoLikeIndex;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmCoLikeIndexTest {
+
+    private static final int FILMS = 30;
+    private static final int USERS = 40;
+
+    @Test
+    void testIncrementalUpdatesMatchRebuild() {
+        FilmCoLikeIndex incremental = new FilmCoLikeIndex(50);
+        Map<Integer, Set<Integer>> filmsByUser = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 3000; i++) {
+            int userId = random.nextInt(USERS) + 1;
+            int filmId = random.nextInt(FILMS) + 1;
+            Set<Integer> liked = filmsByUser.computeIfAbsent(userId, k -> new HashSet<>());
+            if (random.nextInt(3) > 0) {
+                if (liked.add(filmId)) {
+                    incremental.onLikeAdded(filmId, liked);
+                }
+            } else if (liked.remove(filmId)) {
+                incremental.onLikeRemoved(filmId, liked);
+            }
+        }
+
+        FilmCoLikeIndex rebuilt = new FilmCoLikeIndex(50);
+        rebuilt.rebuild(filmsByUser);
+        for (int filmId = 1; filmId <= FILMS; filmId++) {
+            assertEquals(rebuilt.getSimilarFilms(filmId, 50), incremental.getSimilarFilms(filmId, 50),
+                    "Соседи фильма " + filmId);
+        }
+    }
+
+    @Test
+    void testRemovingUnknownPairChangesNothing() {
+        FilmCoLikeIndex index = new FilmCoLikeIndex(10);
+
+        index.onLikeRemoved(1, List.of(2));
+        assertEquals(List.of(), index.getSimilarFilms(1, 10));
+        assertEquals(List.of(), index.getSimilarFilms(2, 10));
+
+        index.onLikeAdded(1, List.of(2));
+        index.onLikeAdded(3, List.of(2));
+        index.onLikeAdded(3, List.of(2));
+        assertEquals(List.of(3, 1), index.getSimilarFilms(2, 10));
+    }
+
+    @Test
+    void testEvictedPairRestartsFromOne() {
+        FilmCoLikeIndex index = new FilmCoLikeIndex(1);
+        for (int i = 0; i < 3; i++) {
+            index.onLikeAdded(1, List.of(2));
+        }
+        index.onLikeAdded(1, List.of(3));
+        index.onLikeAdded(1, List.of(3));
+
+        // у фильма 1 хранится не больше двух соседей: пара 1-4 вытесняется при каждом появлении
+        index.onLikeAdded(1, List.of(4));
+        index.onLikeAdded(1, List.of(4));
+        index.onLikeAdded(1, List.of(4));
+        assertEquals(List.of(2), index.getSimilarFilms(1, 1));
+
+        index.onLikeRemoved(1, List.of(2));
+        index.onLikeRemoved(1, List.of(2));
+        // настоящий счёт пары 1-4 равен 3, но после вытеснения он занижен до 1
+        assertEquals(List.of(3), index.getSimilarFilms(1, 1));
+        assertEquals(List.of(1), index.getSimilarFilms(4, 1));
+    }
+}
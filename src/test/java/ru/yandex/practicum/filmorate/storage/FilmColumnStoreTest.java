@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.index.FilmColumnStore;
+import ru.yandex.practicum.filmorate.storage.index.FilmColumnStore.Column;
+import ru.yandex.practicum.filmorate.storage.index.FilmColumnStore.Query;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmColumnStoreTest {
+
+    private static final int MIN = Integer.MIN_VALUE;
+    private static final int MAX = Integer.MAX_VALUE;
+
+    @Test
+    void testSearchMatchesNaiveFilterAndSort() {
+        FilmColumnStore store = new FilmColumnStore();
+        Map<Integer, Film> films = new HashMap<>();
+        Random random = new Random(3);
+        for (int id = 1; id <= 300; id++) {
+            Film film = film(id, random);
+            films.put(id, film);
+            store.upsert(film);
+            store.setLikes(id, film.getLikes().size());
+        }
+
+        List<Query> queries = new ArrayList<>();
+        for (Column column : Column.values()) {
+            for (boolean descending : new boolean[]{false, true}) {
+                queries.add(new Query(0, -1, MIN, MAX, MIN, MAX, MIN, MAX, column, descending, MAX));
+                queries.add(new Query(0, -1, MIN, MAX, MIN, MAX, MIN, MAX, column, descending, 7));
+                queries.add(new Query(FilmColumnStore.genreMask(List.of(Genre.Drama)), -1,
+                        100, 120, MIN, MAX, 2, MAX, column, descending, MAX));
+                queries.add(new Query(0, (1 << Mpa.G.ordinal()) | (1 << Mpa.R.ordinal()),
+                        MIN, 110, epochDay(1900, 1, 1), epochDay(1969, 12, 31), MIN, 3, column, descending, MAX));
+                queries.add(new Query(FilmColumnStore.genreMask(List.of(Genre.Comedy, Genre.Action)), -1,
+                        MIN, MAX, epochDay(1960, 6, 1), MAX, MIN, MAX, column, descending, 20));
+                queries.add(new Query(0, -1, MIN, MAX, MIN, epochDay(1895, 12, 28), MIN, MAX, column, descending, MAX));
+            }
+        }
+        for (Query query : queries) {
+            assertEquals(naive(films, query), Arrays.stream(store.search(query)).boxed().toList(), query.toString());
+        }
+    }
+
+    @Test
+    void testTiesAreOrderedByIdInBothDirections() {
+        FilmColumnStore store = new FilmColumnStore();
+        store.upsert(film(3, 100, LocalDate.of(1950, 1, 1)));
+        store.upsert(film(1, 100, LocalDate.of(1950, 1, 1)));
+        store.upsert(film(2, 90, LocalDate.of(2000, 1, 1)));
+        store.upsert(film(4, 120, LocalDate.of(1950, 1, 1)));
+
+        assertArrayEquals(new int[]{2, 1, 3, 4}, store.search(query(Column.DURATION, false)));
+        assertArrayEquals(new int[]{4, 1, 3, 2}, store.search(query(Column.DURATION, true)));
+        assertArrayEquals(new int[]{1, 3, 4, 2}, store.search(query(Column.RELEASE_DATE, false)));
+        assertArrayEquals(new int[]{2, 1, 3, 4}, store.search(query(Column.RELEASE_DATE, true)));
+        assertArrayEquals(new int[]{1, 2, 3, 4}, store.search(query(Column.LIKES, true)));
+    }
+
+    @Test
+    void testUpsertKeepsLikesAndReplacesAttributes() {
+        FilmColumnStore store = new FilmColumnStore();
+        store.upsert(film(1, 100, LocalDate.of(1960, 1, 1)));
+        store.setLikes(1, 5);
+        store.upsert(film(1, 150, LocalDate.of(2010, 1, 1)));
+
+        int day1960 = epochDay(1960, 1, 1);
+        assertArrayEquals(new int[0], store.search(new Query(0, -1, MIN, 100, MIN, MAX, MIN, MAX,
+                Column.ID, false, MAX)));
+        assertArrayEquals(new int[0], store.search(new Query(0, -1, MIN, MAX, day1960, day1960, MIN, MAX,
+                Column.ID, false, MAX)));
+        assertArrayEquals(new int[]{1}, store.search(new Query(0, -1, 150, 150, MIN, MAX, 5, 5,
+                Column.ID, false, MAX)));
+    }
+
+    private static List<Integer> naive(Map<Integer, Film> films, Query query) {
+        ToIntFunction<Film> key = switch (query.sortBy()) {
+            case ID -> Film::getId;
+            case DURATION -> Film::getDuration;
+            case RELEASE_DATE -> film -> (int) film.getReleaseDate().toEpochDay();
+            case LIKES -> film -> film.getLikes().size();
+        };
+        Comparator<Film> byKey = Comparator.comparingInt(key);
+        if (query.descending()) {
+            byKey = byKey.reversed();
+        }
+        return films.values().stream()
+                .filter(film -> film.getDuration() >= query.minDuration() && film.getDuration() <= query.maxDuration())
+                .filter(film -> {
+                    long day = film.getReleaseDate().toEpochDay();
+                    return day >= query.minReleaseDay() && day <= query.maxReleaseDay();
+                })
+                .filter(film -> film.getLikes().size() >= query.minLikes()
+                        && film.getLikes().size() <= query.maxLikes())
+                .filter(film -> (FilmColumnStore.genreMask(film.getGenres()) & query.genreMask()) == query.genreMask())
+                .filter(film -> ((1 << film.getMpa().ordinal()) & query.mpaMask()) != 0)
+                .sorted(byKey.thenComparing(Film::getId))
+                .limit(query.limit())
+                .map(Film::getId)
+                .toList();
+    }
+
+    private static Query query(Column sortBy, boolean descending) {
+        return new Query(0, -1, MIN, MAX, MIN, MAX, MIN, MAX, sortBy, descending, MAX);
+    }
+
+    private static int epochDay(int year, int month, int day) {
+        return (int) LocalDate.of(year, month, day).toEpochDay();
+    }
+
+    /**
+     * Значения выбираются из небольших наборов, чтобы при сортировке было много равных ключей;
+     * даты выхода начинаются с 1895 года, то есть часть дней от эпохи отрицательна.
+     */
+    private static Film film(int id, Random random) {
+        Film film = film(id, 90 + 10 * random.nextInt(4),
+                LocalDate.of(1895 + random.nextInt(130), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+        List<Genre> genres = new ArrayList<>();
+        for (Genre genre : Genre.values()) {
+            if (random.nextInt(3) == 0) {
+                genres.add(genre);
+            }
+        }
+        film.setGenres(genres);
+        film.setMpa(Mpa.values()[random.nextInt(Mpa.values().length)]);
+        int likes = random.nextInt(6);
+        for (int userId = 1; userId <= likes; userId++) {
+            film.getLikes().add(userId);
+        }
+        return film;
+    }
+
+    private static Film film(int id, int duration, LocalDate releaseDate) {
+        Film film = new Film();
+        film.setId(id);
+        film.setDuration(duration);
+        film.setReleaseDate(releaseDate);
+        film.setMpa(Mpa.G);
+        return film;
+    }
+}
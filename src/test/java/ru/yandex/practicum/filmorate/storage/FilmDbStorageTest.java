@@ -5,14 +5,30 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmIndexLoader;
+import ru.yandex.practicum.filmorate.storage.index.FilmTrendingCounters;
+import ru.yandex.practicum.filmorate.storage.index.UserFilmLikesMatrix;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,6 +38,15 @@ class FilmDbStorageTest {
     @Autowired
     private FilmDbStorage filmDbStorage;
 
+    @Autowired
+    private FilmTrendingCounters trendingCounters;
+
+    @Autowired
+    private UserFilmLikesMatrix likesMatrix;
+
+    @Autowired
+    private FilmIndexLoader indexLoader;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -32,6 +57,9 @@ class FilmDbStorageTest {
         jdbcTemplate.update("DELETE FROM films");
         jdbcTemplate.update("DELETE FROM users");
         jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES ('test@mail.com','login1','User1','2000-01-01')");
+        likesMatrix.rebuild();
+        filmDbStorage.rebuildLikeIndexes();
+        indexLoader.load();
     }
 
     @Test
@@ -144,4 +172,169 @@ class FilmDbStorageTest {
         List<Film> films = filmDbStorage.getAllFilms();
         assertEquals(2, films.size());
     }
+
+    @Test
+    void testGetLikedFilmsByUsers() {
+        Film film = new Film();
+        film.setName("Liked Film");
+        film.setDescription("Desc");
+        film.setDuration(100);
+        film.setReleaseDate(LocalDate.of(2021, 1, 1));
+        film.setMpa(Mpa.G);
+
+        Film savedFilm = filmDbStorage.addFilm(film);
+        Integer userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = 'login1'", Integer.class);
+        filmDbStorage.addLike(savedFilm.getId(), userId);
+
+        Map<Integer, Set<Integer>> likes = filmDbStorage.getLikedFilmsByUsers();
+        assertEquals(1, likes.size());
+        assertEquals(Set.of(savedFilm.getId()), likes.get(userId));
+    }
+
+    @Test
+    void testLikesUpdateTrendingCounters() {
+        Film film = new Film();
+        film.setName("Trending");
+        film.setDescription("Desc");
+        film.setDuration(100);
+        film.setReleaseDate(LocalDate.of(2021, 1, 1));
+        film.setMpa(Mpa.G);
+        Film savedFilm = filmDbStorage.addFilm(film);
+
+        Integer userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = 'login1'", Integer.class);
+        filmDbStorage.addLike(savedFilm.getId(), userId);
+        assertNotNull(jdbcTemplate.queryForObject("SELECT created_at FROM film_likes WHERE film_id = ?",
+                Timestamp.class, savedFilm.getId()));
+        assertTrue(trendingCounters.getTrendingFilms(1, Integer.MAX_VALUE).contains(savedFilm.getId()));
+
+        filmDbStorage.removeLike(savedFilm.getId(), userId);
+        assertFalse(trendingCounters.getTrendingFilms(1, Integer.MAX_VALUE).contains(savedFilm.getId()));
+    }
+
+    @Test
+    void testLikesWithoutTimeAreNotTrending() {
+        Film film = new Film();
+        film.setName("Old likes");
+        film.setDescription("Desc");
+        film.setDuration(100);
+        film.setReleaseDate(LocalDate.of(2021, 1, 1));
+        film.setMpa(Mpa.G);
+        Film savedFilm = filmDbStorage.addFilm(film);
+
+        Integer userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = 'login1'", Integer.class);
+        jdbcTemplate.update("INSERT INTO film_likes (user_id, film_id, created_at) VALUES (?, ?, NULL)",
+                userId, savedFilm.getId());
+        filmDbStorage.rebuildLikeIndexes();
+        assertFalse(trendingCounters.getTrendingFilms(168, Integer.MAX_VALUE).contains(savedFilm.getId()));
+
+        assertTrue(filmDbStorage.removeLike(savedFilm.getId(), userId));
+        jdbcTemplate.update("INSERT INTO film_likes (user_id, film_id, created_at) VALUES (?, ?, NULL)",
+                userId, savedFilm.getId());
+        assertArrayEquals(new boolean[]{true}, filmDbStorage.applyLikeOperations(
+                List.of(new LikeOperation(savedFilm.getId(), userId, false))));
+    }
+
+    @Test
+    void testAddLikeIsIdempotentUnderConcurrency() throws Exception {
+        Film film = new Film();
+        film.setName("Raced");
+        film.setDescription("Desc");
+        film.setDuration(100);
+        film.setReleaseDate(LocalDate.of(2021, 1, 1));
+        film.setMpa(Mpa.G);
+        Film savedFilm = filmDbStorage.addFilm(film);
+        Integer userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = 'login1'", Integer.class);
+
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return filmDbStorage.addLike(savedFilm.getId(), userId);
+            }));
+        }
+        start.countDown();
+        int added = 0;
+        for (Future<Boolean> result : results) {
+            added += result.get() ? 1 : 0;
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, added);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM film_likes WHERE film_id = ?",
+                Integer.class, savedFilm.getId()));
+        assertTrue(filmDbStorage.removeLike(savedFilm.getId(), userId));
+        assertFalse(filmDbStorage.removeLike(savedFilm.getId(), userId));
+    }
+
+    @Test
+    void testGetFilmLikerIdsPagesByUserId() {
+        Film film = new Film();
+        film.setName("Popular");
+        film.setDescription("Desc");
+        film.setDuration(100);
+        film.setReleaseDate(LocalDate.of(2021, 1, 1));
+        film.setMpa(Mpa.G);
+        int filmId = filmDbStorage.addFilm(film).getId();
+        for (int i = 2; i <= 4; i++) {
+            jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, 'User', '2000-01-01')",
+                    "user" + i + "@mail.com", "login" + i);
+        }
+        List<Integer> userIds = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Integer.class);
+        userIds.forEach(userId -> filmDbStorage.addLike(filmId, userId));
+
+        List<Integer> firstPage = filmDbStorage.getFilmLikerIds(filmId, 0, 3);
+        List<Integer> secondPage = filmDbStorage.getFilmLikerIds(filmId, firstPage.get(2), 3);
+
+        assertEquals(userIds.subList(0, 3), firstPage);
+        assertEquals(userIds.subList(3, 4), secondPage);
+    }
+
+    @Test
+    void testGetFilmIdsPagesThroughAllFilms() {
+        List<Integer> filmIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Film film = new Film();
+            film.setName("Stream" + i);
+            film.setDescription("Desc");
+            film.setDuration(100);
+            film.setReleaseDate(LocalDate.of(2021, 1, 1));
+            film.setMpa(Mpa.G);
+            filmIds.add(filmDbStorage.addFilm(film).getId());
+        }
+
+        assertEquals(filmIds.subList(0, 2), filmDbStorage.getFilmIds(0, 2));
+        assertEquals(filmIds.subList(2, 3), filmDbStorage.getFilmIds(filmIds.get(1), 2));
+    }
+
+    @Test
+    void testGetFilmReturnsSameInstanceWithinRequestUntilWrite() {
+        Film film = new Film();
+        film.setName("Cached");
+        film.setDescription("Desc");
+        film.setDuration(100);
+        film.setReleaseDate(LocalDate.of(2021, 1, 1));
+        film.setMpa(Mpa.G);
+        int filmId = filmDbStorage.addFilm(film).getId();
+        Integer userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = 'login1'", Integer.class);
+        RequestContextHolder.resetRequestAttributes();
+        assertNotSame(filmDbStorage.getFilm(filmId).orElseThrow(), filmDbStorage.getFilm(filmId).orElseThrow());
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            Film first = filmDbStorage.getFilm(filmId).orElseThrow();
+            assertTrue(filmDbStorage.isFilmPresent(filmId));
+            assertSame(first, filmDbStorage.getFilm(filmId).orElseThrow());
+
+            filmDbStorage.addLike(filmId, userId);
+            Film reloaded = filmDbStorage.getFilm(filmId).orElseThrow();
+            assertNotSame(first, reloaded);
+            assertEquals(Set.of(userId), reloaded.getLikes());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
 }
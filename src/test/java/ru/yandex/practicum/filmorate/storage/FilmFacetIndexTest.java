@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.index.FilmFacetIndex;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmFacetIndexTest {
+
+    private static final List<Integer> YEARS = List.of(1999, 2000, 2001, 2024);
+
+    @Test
+    void testEmptyIndexMatchesNothing() {
+        FilmFacetIndex index = new FilmFacetIndex();
+
+        assertTrue(index.filter(null, null, null).isEmpty());
+        assertTrue(index.filter(Genre.Drama, Mpa.R, 2000).isEmpty());
+    }
+
+    @Test
+    void testFilterMatchesBruteForce() {
+        FilmFacetIndex index = new FilmFacetIndex();
+        Map<Integer, Film> films = new HashMap<>();
+        Random random = new Random(7);
+        for (int id = 1; id <= 200; id++) {
+            Film film = film(id, random);
+            films.put(id, film);
+            index.index(film);
+        }
+        assertFiltersMatch(index, films);
+
+        // обновление: у части фильмов меняются все фасеты, старые биты должны сняться
+        for (int id = 1; id <= 200; id += 3) {
+            Film film = film(id, random);
+            films.put(id, film);
+            index.index(film);
+        }
+        assertFiltersMatch(index, films);
+    }
+
+    @Test
+    void testUpdateMovesFilmBetweenFacets() {
+        FilmFacetIndex index = new FilmFacetIndex();
+        Film film = new Film();
+        film.setId(5);
+        film.setGenres(List.of(Genre.Comedy));
+        film.setMpa(Mpa.G);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        index.index(film);
+
+        film.setGenres(List.of(Genre.Drama));
+        film.setMpa(Mpa.R);
+        film.setReleaseDate(LocalDate.of(2010, 1, 1));
+        index.index(film);
+
+        assertTrue(index.filter(Genre.Comedy, null, null).isEmpty());
+        assertTrue(index.filter(null, Mpa.G, null).isEmpty());
+        assertTrue(index.filter(null, null, 2000).isEmpty());
+        assertEquals(bits(5), index.filter(Genre.Drama, Mpa.R, 2010));
+        assertEquals(bits(5), index.filter(null, null, null));
+    }
+
+    private static void assertFiltersMatch(FilmFacetIndex index, Map<Integer, Film> films) {
+        List<Genre> genres = new ArrayList<>(Arrays.asList(Genre.values()));
+        genres.add(null);
+        List<Mpa> ratings = new ArrayList<>(Arrays.asList(Mpa.values()));
+        ratings.add(null);
+        List<Integer> years = new ArrayList<>(YEARS);
+        years.add(1900);
+        years.add(null);
+        for (Genre genre : genres) {
+            for (Mpa mpa : ratings) {
+                for (Integer year : years) {
+                    assertEquals(bruteForce(films, genre, mpa, year), index.filter(genre, mpa, year),
+                            "Фильтр " + genre + ", " + mpa + ", " + year);
+                }
+            }
+        }
+    }
+
+    private static BitSet bruteForce(Map<Integer, Film> films, Genre genre, Mpa mpa, Integer year) {
+        BitSet result = new BitSet();
+        films.values().stream()
+                .filter(film -> genre == null || film.getGenres().contains(genre))
+                .filter(film -> mpa == null || mpa == film.getMpa())
+                .filter(film -> year == null || year == film.getReleaseDate().getYear())
+                .forEach(film -> result.set(film.getId()));
+        return result;
+    }
+
+    private static Film film(int id, Random random) {
+        Film film = new Film();
+        film.setId(id);
+        List<Genre> genres = new ArrayList<>();
+        for (Genre genre : Genre.values()) {
+            if (random.nextInt(3) == 0) {
+                genres.add(genre);
+            }
+        }
+        film.setGenres(genres);
+        film.setMpa(Mpa.values()[random.nextInt(Mpa.values().length)]);
+        film.setReleaseDate(LocalDate.of(YEARS.get(random.nextInt(YEARS.size())), 1 + random.nextInt(12), 1));
+        return film;
+    }
+
+    private static BitSet bits(int... ids) {
+        BitSet bits = new BitSet();
+        Arrays.stream(ids).forEach(bits::set);
+        return bits;
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.index.FilmFeatureLshIndex;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmFeatureLshIndexTest {
+
+    @Test
+    void testExactDuplicateComesFirst() {
+        FilmFeatureLshIndex index = new FilmFeatureLshIndex(8, 6);
+        Random random = new Random(17);
+        List<Film> films = new ArrayList<>();
+        for (int id = 1; id <= 300; id++) {
+            films.add(film(id, random));
+        }
+        index.rebuild(films);
+
+        for (int id = 1; id <= 300; id += 37) {
+            Film original = films.get(id - 1);
+            Film duplicate = film(1000 + id, original.getGenres(), original.getMpa(),
+                    original.getReleaseDate().getYear(), original.getDuration());
+            index.index(duplicate);
+
+            assertEquals(duplicate.getId(), index.getAlikeFilms(id, 5).get(0), "Дубликат фильма " + id);
+            assertEquals(id, index.getAlikeFilms(duplicate.getId(), 5).get(0), "Оригинал фильма " + id);
+        }
+    }
+
+    @Test
+    void testUpdatedFilmMovesToNewNeighbours() {
+        FilmFeatureLshIndex index = new FilmFeatureLshIndex(8, 6);
+        List<Genre> drama = List.of(Genre.Drama, Genre.Documentary);
+        List<Genre> comedy = List.of(Genre.Comedy, Genre.Cartoon);
+        for (int id = 1; id <= 3; id++) {
+            index.index(film(id, drama, Mpa.R, 1960, 200));
+            index.index(film(id + 3, comedy, Mpa.G, 2020, 80));
+        }
+        index.index(film(7, drama, Mpa.R, 1960, 200));
+        assertEquals(List.of(1, 2, 3), index.getAlikeFilms(7, 3));
+        assertEquals(List.of(2, 3, 7), index.getAlikeFilms(1, 3));
+
+        index.index(film(7, comedy, Mpa.G, 2020, 80));
+
+        assertEquals(List.of(4, 5, 6), index.getAlikeFilms(7, 3));
+        assertEquals(List.of(2, 3), index.getAlikeFilms(1, 2));
+        assertEquals(List.of(5, 6, 7), index.getAlikeFilms(4, 3));
+    }
+
+    @Test
+    void testUnknownFilmHasNoAlikeFilms() {
+        FilmFeatureLshIndex index = new FilmFeatureLshIndex(8, 6);
+        index.index(film(1, List.of(Genre.Action), Mpa.PG, 2000, 120));
+
+        assertEquals(List.of(), index.getAlikeFilms(2, 5));
+        assertEquals(List.of(), index.getAlikeFilms(1, 5));
+    }
+
+    private static Film film(int id, Random random) {
+        List<Genre> genres = new ArrayList<>();
+        for (Genre genre : Genre.values()) {
+            if (random.nextInt(3) == 0) {
+                genres.add(genre);
+            }
+        }
+        return film(id, genres, Mpa.values()[random.nextInt(Mpa.values().length)],
+                1900 + random.nextInt(125), 60 + random.nextInt(150));
+    }
+
+    private static Film film(int id, List<Genre> genres, Mpa mpa, int year, int duration) {
+        Film film = new Film();
+        film.setId(id);
+        film.setGenres(genres);
+        film.setMpa(mpa);
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        film.setDuration(duration);
+        return film;
+    }
+}
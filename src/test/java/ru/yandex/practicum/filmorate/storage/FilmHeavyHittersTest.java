@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.index.FilmHeavyHitters;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmHeavyHittersTest {
+
+    private static final double EPSILON = 0.001;
+    private static final int FILMS = 10_000;
+    private static final int LIKES = 200_000;
+
+    @Test
+    void testApproximateTopMatchesExact() {
+        FilmHeavyHitters heavyHitters = new FilmHeavyHitters(EPSILON, 0.01, 100);
+        Map<Integer, Integer> exact = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < LIKES; i++) {
+            int filmId = zipf(random);
+            exact.merge(filmId, 1, Integer::sum);
+            heavyHitters.offer(filmId);
+        }
+
+        List<Integer> exactTop = exact.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed())
+                .limit(10)
+                .map(Map.Entry::getKey)
+                .toList();
+        List<Integer> approxTop = heavyHitters.getTopFilms(10);
+        Set<Integer> common = new HashSet<>(exactTop);
+        common.retainAll(approxTop);
+        assertTrue(common.size() >= 9, "Приближённый топ " + approxTop + " расходится с точным " + exactTop);
+
+        for (Integer filmId : exactTop) {
+            long error = heavyHitters.estimate(filmId) - exact.get(filmId);
+            assertTrue(error >= 0 && error <= EPSILON * LIKES, "Ошибка оценки фильма " + filmId + ": " + error);
+        }
+    }
+
+    @Test
+    void testDecayHalvesEstimates() {
+        FilmHeavyHitters heavyHitters = new FilmHeavyHitters(EPSILON, 0.01, 10);
+        for (int i = 0; i < 8; i++) {
+            heavyHitters.offer(1);
+        }
+        heavyHitters.offer(2);
+
+        heavyHitters.decay();
+
+        assertEquals(4, heavyHitters.estimate(1));
+        assertEquals(List.of(1), heavyHitters.getTopFilms(10));
+    }
+
+    @Test
+    void testRebuildSeedsRecentLikeCounts() {
+        FilmHeavyHitters heavyHitters = new FilmHeavyHitters(EPSILON, 0.01, 2);
+        heavyHitters.rebuild(Map.of(1, 3L, 3, 5L, 4, 1L));
+
+        assertEquals(5, heavyHitters.estimate(3));
+        assertEquals(List.of(3, 1), heavyHitters.getTopFilms(10));
+
+        heavyHitters.offer(4);
+        heavyHitters.offer(4);
+        heavyHitters.offer(4);
+        assertEquals(List.of(3, 4), heavyHitters.getTopFilms(10));
+
+        heavyHitters.rebuild(Map.of(1, 3L, 3, 5L));
+        assertEquals(5, heavyHitters.estimate(3));
+        assertEquals(0, heavyHitters.estimate(4));
+        assertEquals(List.of(3, 1), heavyHitters.getTopFilms(10));
+    }
+
+    /**
+     * Возвращает ID фильма из распределения Ципфа: фильм с номером k выбирается с вероятностью ~ 1/k.
+     */
+    private static int zipf(Random random) {
+        double harmonic = Math.log(FILMS) + 0.5772;
+        double target = random.nextDouble() * harmonic;
+        double sum = 0;
+        for (int k = 1; k <= FILMS; k++) {
+            sum += 1.0 / k;
+            if (sum >= target) {
+                return k;
+            }
+        }
+        return FILMS;
+    }
+}
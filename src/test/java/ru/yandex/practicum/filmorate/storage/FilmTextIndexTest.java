@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.index.FilmTextIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmTextIndexTest {
+
+    private static final List<String> WORDS = List.of("космос", "любовь", "война", "ёлка", "space", "love", "war", "123");
+
+    @Test
+    void testOutOfOrderAddsAndRemovesMatchBruteForce() {
+        FilmTextIndex index = new FilmTextIndex();
+        Map<Integer, Film> films = new HashMap<>();
+        Random random = new Random(5);
+        // ID с однобайтовыми, двух- и трёхбайтовыми varint-разностями, добавляются в случайном порядке
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 150; i++) {
+            ids.add(i * (i % 3 == 0 ? 131 : 1) + (i % 7 == 0 ? 20_000 * i : 0));
+        }
+        Collections.shuffle(ids, random);
+        for (int id : ids) {
+            Film film = film(id, random);
+            films.put(id, film);
+            index.index(film);
+        }
+        assertSearchMatches(index, films);
+
+        // переиндексация удаляет старые вхождения из начала, середины и конца списков
+        for (int i = 0; i < ids.size(); i += 4) {
+            Film film = film(ids.get(i), random);
+            films.put(film.getId(), film);
+            index.index(film);
+        }
+        assertSearchMatches(index, films);
+    }
+
+    @Test
+    void testRankingFollowsBm25() {
+        FilmTextIndex index = new FilmTextIndex();
+        index.index(film(1, "Космос", "Фильм про далёкий космос и космос снова"));
+        index.index(film(2, "Дорога", "Длинная история о дороге, в которой однажды упоминается космос"));
+        index.index(film(3, "Лес", "Про лес"));
+
+        Map<Integer, Double> scores = index.search("КОСМОС");
+
+        assertEquals(Set.of(1, 2), scores.keySet());
+        assertTrue(scores.get(1) > scores.get(2));
+        assertTrue(index.search("ёлка").isEmpty());
+        assertTrue(index.search("  ").isEmpty());
+    }
+
+    @Test
+    void testReindexedFilmLosesOldTerms() {
+        FilmTextIndex index = new FilmTextIndex();
+        index.index(film(10, "Война", "Описание"));
+        index.index(film(5, "Война", "Описание"));
+        index.index(film(10, "Мир", "Описание"));
+
+        assertEquals(Set.of(5), index.search("война").keySet());
+        assertEquals(Set.of(10), index.search("мир").keySet());
+    }
+
+    private static void assertSearchMatches(FilmTextIndex index, Map<Integer, Film> films) {
+        for (String word : WORDS) {
+            assertScoresEqual(bm25(films, word), index.search(word), word);
+        }
+        assertScoresEqual(bm25(films, "космос love"), index.search("космос love"), "космос love");
+    }
+
+    private static void assertScoresEqual(Map<Integer, Double> expected, Map<Integer, Double> actual, String query) {
+        assertEquals(expected.keySet(), actual.keySet(), query);
+        expected.forEach((id, score) -> assertEquals(score, actual.get(id), 1e-9, query + ", фильм " + id));
+    }
+
+    /**
+     * BM25 без индекса: k1 = 1.2, b = 0.75, слова названия учитываются дважды.
+     */
+    private static Map<Integer, Double> bm25(Map<Integer, Film> films, String query) {
+        Map<Integer, Map<String, Integer>> frequencies = new HashMap<>();
+        double totalLength = 0;
+        for (Film film : films.values()) {
+            Map<String, Integer> tf = new HashMap<>();
+            tokenize(film.getName()).forEach(term -> tf.merge(term, 2, Integer::sum));
+            tokenize(film.getDescription()).forEach(term -> tf.merge(term, 1, Integer::sum));
+            frequencies.put(film.getId(), tf);
+            totalLength += tf.values().stream().mapToInt(Integer::intValue).sum();
+        }
+        double averageLength = totalLength / films.size();
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            long containing = frequencies.values().stream().filter(tf -> tf.containsKey(term)).count();
+            double idf = Math.log(1 + (films.size() - containing + 0.5) / (containing + 0.5));
+            frequencies.forEach((id, tf) -> {
+                Integer count = tf.get(term);
+                if (count != null) {
+                    int length = tf.values().stream().mapToInt(Integer::intValue).sum();
+                    double norm = 1.2 * (1 - 0.75 + 0.75 * length / averageLength);
+                    scores.merge(id, idf * count * 2.2 / (count + norm), Double::sum);
+                }
+            });
+        }
+        return scores;
+    }
+
+    private static List<String> tokenize(String text) {
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).replace('ё', 'е').split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .toList();
+    }
+
+    private static Film film(int id, Random random) {
+        return film(id, words(random, 1 + random.nextInt(2)), words(random, random.nextInt(12)));
+    }
+
+    private static String words(Random random, int count) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            words.add(WORDS.get(random.nextInt(WORDS.size())));
+        }
+        return String.join(random.nextBoolean() ? " " : ", ", words);
+    }
+
+    private static Film film(int id, String name, String description) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        return film;
+    }
+}
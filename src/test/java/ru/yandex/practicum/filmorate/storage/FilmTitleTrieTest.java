@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.index.FilmTitleTrie;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmTitleTrieTest {
+
+    private static final int TOP_K = 3;
+    private static final List<String> WORDS = List.of("a", "b", "ab", "ba");
+
+    @Test
+    void testTrailingSpaceEndsWord() {
+        FilmTitleTrie trie = new FilmTitleTrie(TOP_K);
+        trie.index(film(1, "Star Wars"));
+        trie.index(film(2, "Starship"));
+        trie.index(film(3, "Ёлки"));
+
+        assertEquals(List.of(1), ids(trie.complete("star ", TOP_K)));
+        assertEquals(List.of(1, 2), ids(trie.complete("  STAR", TOP_K)));
+        assertEquals(List.of(1), ids(trie.complete("star  w", TOP_K)));
+        assertEquals(List.of(3), ids(trie.complete("ел", TOP_K)));
+        assertEquals(List.of(), ids(trie.complete("starship ", TOP_K)));
+    }
+
+    @Test
+    void testDemotedFilmIsReplacedFromOutsideCache() {
+        FilmTitleTrie trie = new FilmTitleTrie(2);
+        for (int id = 1; id <= 3; id++) {
+            trie.index(film(id, "Film " + id));
+        }
+        trie.updateLikes(1, 5);
+        trie.updateLikes(2, 4);
+        trie.updateLikes(3, 3);
+        assertEquals(List.of(1, 2), ids(trie.complete("f", 2)));
+
+        trie.updateLikes(1, 1);
+        assertEquals(List.of(2, 3), ids(trie.complete("", 2)));
+        assertEquals(List.of(2, 3), ids(trie.complete("film", 2)));
+        assertEquals(List.of(1), ids(trie.complete("film 1", 2)));
+    }
+
+    @Test
+    void testCompletionsMatchBruteForce() {
+        FilmTitleTrie trie = new FilmTitleTrie(TOP_K);
+        Map<Integer, String> names = new HashMap<>();
+        Map<Integer, Integer> likes = new HashMap<>();
+        Random random = new Random(13);
+        for (int step = 0; step < 2000; step++) {
+            int filmId = 1 + random.nextInt(25);
+            if (!names.containsKey(filmId) || random.nextInt(5) == 0) {
+                String name = name(random);
+                names.put(filmId, name);
+                likes.putIfAbsent(filmId, 0);
+                trie.index(film(filmId, name));
+            } else {
+                int count = Math.max(0, likes.get(filmId) + random.nextInt(7) - 3);
+                likes.put(filmId, count);
+                trie.updateLikes(filmId, count);
+            }
+            if (step % 50 == 0) {
+                assertCompletionsMatch(trie, names, likes);
+            }
+        }
+        assertCompletionsMatch(trie, names, likes);
+    }
+
+    private static void assertCompletionsMatch(FilmTitleTrie trie, Map<Integer, String> names,
+                                               Map<Integer, Integer> likes) {
+        List<String> prefixes = new ArrayList<>(List.of("", "a", "b", "ab", "ba", "a ", "b ", "ab ", "a b", "ba a"));
+        for (String prefix : prefixes) {
+            List<Integer> expected = names.entrySet().stream()
+                    .filter(entry -> entry.getValue().startsWith(prefix))
+                    .map(Map.Entry::getKey)
+                    .sorted(Comparator.<Integer>comparingInt(likes::get).reversed()
+                            .thenComparing(Comparator.naturalOrder()))
+                    .limit(TOP_K)
+                    .toList();
+            assertEquals(expected, ids(trie.complete(prefix, TOP_K)), "Префикс '" + prefix + "'");
+        }
+    }
+
+    private static String name(Random random) {
+        List<String> words = new ArrayList<>();
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            words.add(WORDS.get(random.nextInt(WORDS.size())));
+        }
+        return String.join(" ", words);
+    }
+
+    private static List<Integer> ids(List<Map.Entry<Integer, String>> entries) {
+        return entries.stream().map(Map.Entry::getKey).toList();
+    }
+
+    private static Film film(int id, String name) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        return film;
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FriendshipService;
+import ru.yandex.practicum.filmorate.storage.friendship.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.config.location=classpath:application-test.properties")
+class FriendDbStorageTest {
+
+    private static final int THREADS = 32;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private FriendDbStorage friendDbStorage;
+
+    @Autowired
+    private FriendshipService friendshipService;
+
+    @Autowired
+    private UserDbStorage userDbStorage;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int userId;
+    private int friendId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM friendship");
+        jdbcTemplate.update("DELETE FROM film_likes");
+        jdbcTemplate.update("DELETE FROM users");
+        userId = userDbStorage.addUser(user("first@mail.com", "first")).getId();
+        friendId = userDbStorage.addUser(user("second@mail.com", "second")).getId();
+    }
+
+    @Test
+    void testAddFriendIsExactlyOnceUnderContention() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Boolean> results = runConcurrently(() -> friendDbStorage.addFriend(userId, friendId));
+
+            assertEquals(1, results.stream().filter(Boolean::booleanValue).count());
+            assertEquals(1, countRows());
+
+            List<Boolean> removals = runConcurrently(() -> friendDbStorage.removeFriend(userId, friendId));
+
+            assertEquals(1, removals.stream().filter(Boolean::booleanValue).count());
+            assertEquals(0, countRows());
+        }
+    }
+
+    @Test
+    void testServiceRejectsRepeatedFriendRequests() throws Exception {
+        List<Boolean> results = runConcurrently(() -> {
+            try {
+                friendshipService.addFriend(userId, friendId);
+                return true;
+            } catch (InternalServerException e) {
+                return false;
+            }
+        });
+
+        assertEquals(1, results.stream().filter(Boolean::booleanValue).count());
+        assertEquals(1, countRows());
+    }
+
+    @Test
+    void testAddFriendWithMissingUserViolatesForeignKey() {
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> friendDbStorage.addFriend(userId, friendId + 1000));
+        assertTrue(e.getMostSpecificCause().getMessage().contains("FRIENDSHIP_FRIEND_FK"));
+        assertEquals(0, countRows());
+    }
+
+    private List<Boolean> runConcurrently(Callable<Boolean> action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return action.call();
+            }));
+        }
+        start.countDown();
+        List<Boolean> results = new ArrayList<>();
+        for (Future<Boolean> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        return results;
+    }
+
+    private int countRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM friendship WHERE user_id = ? AND friend_id = ?",
+                Integer.class, userId, friendId);
+    }
+
+    private static User user(String email, String login) {
+        User user = new User();
+        user.setEmail(email);
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+}
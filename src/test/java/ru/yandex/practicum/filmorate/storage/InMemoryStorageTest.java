@@ -0,0 +1,184 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.friendship.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.friendship.FriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.memory.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.memory.InMemoryFriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.memory.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.config.location=classpath:application-test.properties")
+@ActiveProfiles("in-memory")
+class InMemoryStorageTest {
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Autowired
+    private FriendshipStorage friendshipStorage;
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+
+    @Autowired
+    private UserDbStorage userDbStorage;
+
+    @Autowired
+    private FriendDbStorage friendDbStorage;
+
+    @Test
+    void testWritesGoThroughToDatabaseAndReadsComeFromMemory() {
+        assertInstanceOf(InMemoryFilmStorage.class, filmStorage);
+        assertInstanceOf(InMemoryUserStorage.class, userStorage);
+        assertInstanceOf(InMemoryFriendshipStorage.class, friendshipStorage);
+
+        User first = userStorage.addUser(user("First"));
+        User second = userStorage.addUser(user("Second"));
+        Film film = filmStorage.addFilm(film("Memory Film"));
+        filmStorage.addGenresForFilm(film.getId(), Set.of(Genre.Drama.getId(), Genre.Comedy.getId()));
+
+        assertTrue(filmStorage.addLike(film.getId(), first.getId()));
+        assertFalse(filmStorage.addLike(film.getId(), first.getId()));
+        assertTrue(friendshipStorage.addFriend(first.getId(), second.getId()));
+        assertThrows(DataIntegrityViolationException.class, () -> filmStorage.addLike(film.getId(), -1));
+
+        Film fromMemory = filmStorage.getFilm(film.getId()).orElseThrow();
+        Film fromDatabase = filmDbStorage.getFilm(film.getId()).orElseThrow();
+        assertEquals(List.of(Genre.Comedy, Genre.Drama), fromMemory.getGenres());
+        assertEquals(Set.copyOf(fromDatabase.getGenres()), Set.copyOf(fromMemory.getGenres()));
+        assertEquals(fromDatabase.getLikes(), fromMemory.getLikes());
+        assertEquals(List.of("First"), filmStorage.getUsersNamesLikedFilm(film.getId()));
+
+        assertTrue(friendshipStorage.areFriends(first.getId(), second.getId()));
+        assertTrue(friendDbStorage.areFriends(first.getId(), second.getId()));
+        second.setEmail("new-" + second.getEmail());
+        userStorage.updateUser(second);
+        assertEquals(List.of(second.getEmail()), userStorage.getFriendsEmails(first.getId()));
+        assertEquals(userDbStorage.getFriendsEmails(first.getId()), userStorage.getFriendsEmails(first.getId()));
+
+        fromMemory.getLikes().clear();
+        assertEquals(Set.of(first.getId()), filmStorage.getFilm(film.getId()).orElseThrow().getLikes());
+    }
+
+    @Test
+    void testListsAndPagesAreServedFromMemory() {
+        List<Integer> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(userStorage.addUser(user("Liker" + i)).getId());
+        }
+        int unpopular = filmStorage.addFilm(film("Unpopular")).getId();
+        int popular = filmStorage.addFilm(film("Popular")).getId();
+        int middle = filmStorage.addFilm(film("Middle")).getId();
+        boolean[] changed = filmStorage.applyLikeOperations(List.of(
+                new LikeOperation(popular, users.get(0), true),
+                new LikeOperation(popular, users.get(1), true),
+                new LikeOperation(popular, users.get(2), true),
+                new LikeOperation(middle, users.get(0), true),
+                new LikeOperation(middle, users.get(1), true),
+                new LikeOperation(popular, users.get(2), false)));
+        assertArrayEquals(new boolean[]{true, true, true, true, true, true}, changed);
+        filmStorage.addLike(popular, users.get(2));
+
+        assertEquals(3, filmStorage.getFilm(popular).orElseThrow().getLikes().size());
+        assertEquals(2, filmStorage.getFilm(middle).orElseThrow().getLikes().size());
+        assertTrue(filmStorage.getFilm(unpopular).orElseThrow().getLikes().isEmpty());
+        assertEquals(List.of(users.get(0), users.get(1)), filmStorage.getFilmLikerIds(popular, 0, 2));
+        assertEquals(List.of(users.get(2)), filmStorage.getFilmLikerIds(popular, users.get(1), 2));
+        assertEquals(List.of(popular, middle), filmStorage.getFilmIds(unpopular, 2));
+        assertTrue(filmStorage.getAllFilms().stream().map(Film::getId).toList()
+                .containsAll(List.of(unpopular, popular, middle)));
+        assertEquals(Set.of(popular, middle), filmStorage.getLikedFilmsByUsers().get(users.get(0)));
+
+        friendshipStorage.addFriend(users.get(0), users.get(2));
+        friendshipStorage.addFriend(users.get(0), users.get(1));
+        assertEquals(List.of(users.get(1)), userStorage.getFriendIds(users.get(0), 0, 1));
+        assertEquals(List.of(users.get(2)), userStorage.getFriendIds(users.get(0), users.get(1), 1));
+        assertTrue(friendshipStorage.removeFriend(users.get(0), users.get(1)));
+        assertEquals(Set.of(users.get(2)), userStorage.getUser(users.get(0)).orElseThrow().getFriends());
+    }
+
+    @Test
+    void testConcurrentLikesKeepMemoryAndDatabaseInSync() throws Exception {
+        List<Integer> users = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            users.add(userStorage.addUser(user("Concurrent" + i)).getId());
+        }
+        int filmId = filmStorage.addFilm(film("Contended")).getId();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int task = 0; task < 16; task++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 50; i++) {
+                        int userId = users.get(random.nextInt(users.size()));
+                        if (random.nextInt(5) == 0) {
+                            filmStorage.applyLikeOperations(List.of(
+                                    new LikeOperation(filmId, userId, random.nextBoolean()),
+                                    new LikeOperation(filmId, users.get(0), random.nextBoolean())));
+                        } else if (random.nextBoolean()) {
+                            filmStorage.addLike(filmId, userId);
+                        } else {
+                            filmStorage.removeLike(filmId, userId);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(filmDbStorage.getFilm(filmId).orElseThrow().getLikes(),
+                filmStorage.getFilm(filmId).orElseThrow().getLikes());
+    }
+
+    private static User user(String name) {
+        User user = new User();
+        user.setEmail(UUID.randomUUID().toString().replace("-", "") + "@mail.com");
+        user.setLogin("login");
+        user.setName(name);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    private static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Desc");
+        film.setDuration(100);
+        film.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film.setMpa(Mpa.G);
+        return film;
+    }
+}
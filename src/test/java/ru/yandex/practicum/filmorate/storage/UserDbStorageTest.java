@@ -1,16 +1,23 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import jakarta.validation.ValidationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dto.user.UserDto;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,6 +27,9 @@ class UserDbStorageTest {
     @Autowired
     private UserDbStorage userDbStorage;
 
+    @Autowired
+    private UserService userService;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -92,4 +102,81 @@ class UserDbStorageTest {
         assertEquals(1, friendsEmails.size());
         assertEquals(savedFriend.getEmail(), friendsEmails.get(0));
     }
+
+    @Test
+    void getUsersAndFriendsEmailsByIds_loadOnlyRequestedUsers() {
+        User user2 = new User();
+        user2.setEmail("friend@example.com");
+        user2.setLogin("frienduser");
+        user2.setName("Friend User");
+        user2.setBirthday(LocalDate.of(2001, 2, 2));
+
+        User savedUser = userDbStorage.addUser(user);
+        User savedFriend = userDbStorage.addUser(user2);
+        jdbcTemplate.update("INSERT INTO friendship (user_id, friend_id) VALUES (?, ?)",
+                savedUser.getId(), savedFriend.getId());
+        int missingId = savedFriend.getId() + 1000;
+
+        List<User> users = userDbStorage.getUsers(List.of(savedFriend.getId(), missingId, savedUser.getId()));
+        assertEquals(Set.of(savedUser.getId(), savedFriend.getId()),
+                users.stream().map(User::getId).collect(Collectors.toSet()));
+
+        Map<Integer, List<String>> emails = userDbStorage.getFriendsEmailsByUsers(
+                List.of(savedUser.getId(), savedFriend.getId()));
+        assertEquals(Map.of(savedUser.getId(), List.of(savedFriend.getEmail())), emails);
+    }
+
+    @Test
+    void getFriendIds_pagesByFriendId() {
+        User savedUser = userDbStorage.addUser(user);
+        List<Integer> friendIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User friend = new User();
+            friend.setEmail("friend" + i + "@example.com");
+            friend.setLogin("friend" + i);
+            friend.setName("Friend " + i);
+            friend.setBirthday(LocalDate.of(2001, 2, 2));
+            int friendId = userDbStorage.addUser(friend).getId();
+            friendIds.add(friendId);
+            jdbcTemplate.update("INSERT INTO friendship (user_id, friend_id) VALUES (?, ?)", savedUser.getId(), friendId);
+        }
+
+        List<Integer> firstPage = userDbStorage.getFriendIds(savedUser.getId(), 0, 2);
+        List<Integer> secondPage = userDbStorage.getFriendIds(savedUser.getId(), firstPage.get(1), 2);
+        List<Integer> lastPage = userDbStorage.getFriendIds(savedUser.getId(), secondPage.get(1), 2);
+
+        assertEquals(friendIds.subList(0, 2), firstPage);
+        assertEquals(friendIds.subList(2, 4), secondPage);
+        assertEquals(friendIds.subList(4, 5), lastPage);
+    }
+
+    @Test
+    void getUsersByIds_embedsFriendsWithSelectedFields() {
+        User savedUser = userDbStorage.addUser(user);
+        List<Integer> friendIds = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            User friend = new User();
+            friend.setEmail("friend" + i + "@example.com");
+            friend.setLogin("friend" + i);
+            friend.setName("Friend " + i);
+            friend.setBirthday(LocalDate.of(2001, 2, 2));
+            int friendId = userDbStorage.addUser(friend).getId();
+            friendIds.add(friendId);
+            jdbcTemplate.update("INSERT INTO friendship (user_id, friend_id) VALUES (?, ?)", savedUser.getId(), friendId);
+        }
+        jdbcTemplate.update("INSERT INTO friendship (user_id, friend_id) VALUES (?, ?)",
+                friendIds.get(0), friendIds.get(1));
+
+        List<UserDto> users = userService.getUsersByIds(List.of(savedUser.getId(), friendIds.get(0)),
+                List.of("name", "friends.name"));
+
+        UserDto first = users.get(0);
+        assertNull(first.getEmail());
+        assertEquals(List.of("Friend 0", "Friend 1"), first.getFriends().stream().map(UserDto::getName).toList());
+        assertNull(first.getFriends().get(0).getEmail());
+        assertNull(first.getFriends().get(0).getFriends());
+        assertEquals(List.of(friendIds.get(1)), users.get(1).getFriends().stream().map(UserDto::getId).toList());
+        assertThrows(ValidationException.class,
+                () -> userService.getUserById(savedUser.getId(), List.of("friends.friends")));
+    }
 }
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.index.UserFilmLikesMatrix;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserFilmLikesMatrixTest {
+
+    @Test
+    void testSimilarUsersAreRankedByJaccard() {
+        UserFilmLikesMatrix matrix = matrix();
+
+        List<UserFilmLikesMatrix.UserSimilarity> similar = matrix.findSimilarUsers(1, 10);
+
+        assertEquals(List.of(6, 2, 5, 3), similar.stream().map(UserFilmLikesMatrix.UserSimilarity::userId).toList());
+        assertEquals(0.6, similar.get(0).similarity(), 1e-9);
+        assertEquals(0.5, similar.get(1).similarity(), 1e-9);
+        assertEquals(0.4, similar.get(2).similarity(), 1e-9);
+        assertEquals(0.25, similar.get(3).similarity(), 1e-9);
+    }
+
+    @Test
+    void testRecommendationsSumNeighbourSimilarities() {
+        UserFilmLikesMatrix matrix = matrix();
+
+        // 4: 0.5 + 0.4, 5: 0.25 + 0.4, 7 и 8: 0.6 — при равенстве выше меньший ID
+        assertEquals(List.of(4, 5, 7, 8), matrix.recommendFilms(1, 10, 10));
+        assertEquals(List.of(4, 5), matrix.recommendFilms(1, 10, 2));
+        // только два ближайших соседа: 6 и 2
+        assertEquals(List.of(7, 8, 4), matrix.recommendFilms(1, 2, 10));
+        assertEquals(List.of(), matrix.recommendFilms(4, 10, 10));
+    }
+
+    @Test
+    void testRemovedLikeChangesRecommendations() {
+        UserFilmLikesMatrix matrix = matrix();
+
+        matrix.removeLike(4, 2);
+        matrix.removeLike(4, 5);
+
+        assertEquals(List.of(5, 7, 8), matrix.recommendFilms(1, 10, 10));
+    }
+
+    /**
+     * Пользователь 1 лайкнул фильмы 1, 2, 3. Меры Жаккара с ним: 6 — 3/5, 2 — 2/4, 5 — 2/5, 3 — 1/4;
+     * у пользователя 4 общих лайков нет.
+     */
+    private static UserFilmLikesMatrix matrix() {
+        UserFilmLikesMatrix matrix = new UserFilmLikesMatrix(null);
+        Map<Integer, Set<Integer>> likes = Map.of(
+                1, Set.of(1, 2, 3),
+                2, Set.of(1, 2, 4),
+                3, Set.of(1, 5),
+                4, Set.of(6),
+                5, Set.of(2, 3, 4, 5),
+                6, Set.of(1, 2, 3, 7, 8));
+        likes.forEach((userId, filmIds) -> filmIds.forEach(filmId -> matrix.addLike(filmId, userId)));
+        return matrix;
+    }
+}